@@ -0,0 +1,41 @@
+package knight.arkham.benchmarks;
+
+import knight.arkham.level.LevelGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Generating one chunk of a seeded level, the work a loader thread does for every chunk the camera comes near. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkGenerationBenchmark {
+
+    private static final int CHUNKS = 4096;
+
+    private LevelGenerator generator;
+    private int[][] layers;
+    private int chunk;
+
+    @Setup
+    public void setup() {
+
+        generator = new LevelGenerator(42, CHUNKS);
+        layers = new int[generator.getLayerNames().length][generator.getChunkWidth() * generator.getHeight()];
+    }
+
+    @Benchmark
+    public int[][] generate() {
+
+        chunk = (chunk + 1) % CHUNKS;
+        generator.readChunk(chunk, layers);
+
+        return layers;
+    }
+}
@@ -0,0 +1,77 @@
+package knight.arkham.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import knight.arkham.collision.CollisionGrid;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** One koala sized collision check on both axes against the level1 walls, the old getTiles + Rectangle overlap
+ * path against the collision grid sweeps. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CollisionBenchmark {
+
+    private static final int SAMPLES = 1024;
+    private static final float WIDTH = 18 / 16f;
+    private static final float HEIGHT = 26 / 16f;
+    private final float[] x = new float[SAMPLES];
+    private final float[] y = new float[SAMPLES];
+    private final float[] dx = new float[SAMPLES];
+    private final float[] dy = new float[SAMPLES];
+    private LegacyTileCollision legacy;
+    private CollisionGrid grid;
+    private int sample;
+
+    @Setup
+    public void setup() {
+
+        TiledMap map = HeadlessLevel.load("level1.tmx");
+        TiledMapTileLayer walls = (TiledMapTileLayer) map.getLayers().get("walls");
+
+        legacy = new LegacyTileCollision(map);
+        grid = CollisionGrid.fromLayer(walls);
+
+        // koala boxes spread over the whole level, moving at up to a tick of max walk and jump speed
+        RandomXS128 random = new RandomXS128(42);
+
+        for (int i = 0; i < SAMPLES; i++) {
+
+            x[i] = random.nextFloat() * (walls.getWidth() - WIDTH);
+            y[i] = random.nextFloat() * (walls.getHeight() - HEIGHT);
+            dx[i] = MathUtils.lerp(-10, 10, random.nextFloat()) / 60;
+            dy[i] = MathUtils.lerp(-40, 40, random.nextFloat()) / 60;
+        }
+    }
+
+    private int nextSample() {return sample = (sample + 1) & (SAMPLES - 1);}
+
+    @Benchmark
+    public void legacyGetTiles(Blackhole blackhole) {
+
+        int i = nextSample();
+
+        blackhole.consume(legacy.collideX(x[i], y[i], WIDTH, HEIGHT, dx[i]));
+        blackhole.consume(legacy.collideY(x[i], y[i], WIDTH, HEIGHT, dy[i]));
+    }
+
+    @Benchmark
+    public void collisionGrid(Blackhole blackhole) {
+
+        int i = nextSample();
+
+        blackhole.consume(grid.sweepX(x[i], y[i], WIDTH, HEIGHT, dx[i]));
+        blackhole.consume(grid.sweepY(x[i], y[i], WIDTH, HEIGHT, dy[i]));
+    }
+}
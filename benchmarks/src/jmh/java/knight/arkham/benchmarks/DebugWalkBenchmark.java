@@ -0,0 +1,75 @@
+package knight.arkham.benchmarks;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.render.VisibleTileRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/** The tile walk the debug view used to do over the whole walls layer with a frustum test per tile, against the
+ * walk over the camera's visible tile range DebugRenderer does now. The rectangles they would draw go to the
+ * blackhole since a ShapeRenderer needs a real GL context. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DebugWalkBenchmark {
+
+    private TiledMapTileLayer layer;
+    private OrthographicCamera camera;
+    private CollisionGrid grid;
+    private final VisibleTileRange range = new VisibleTileRange();
+
+    @Setup
+    public void setup() {
+
+        layer = HeadlessLevel.loadWalls("level1.tmx");
+        grid = CollisionGrid.fromLayer(layer);
+
+        camera = new OrthographicCamera();
+        camera.setToOrtho(false, 30, 20);
+        camera.position.x = 20;
+        camera.update();
+    }
+
+    @Benchmark
+    public void fullLayerWalk(Blackhole blackhole) {
+
+        for (int y = 0; y <= layer.getHeight(); y++) {
+
+            for (int x = 0; x <= layer.getWidth(); x++) {
+
+                Cell cell = layer.getCell(x, y);
+
+                if (cell != null) {
+                    if (camera.frustum.boundsInFrustum(x + 0.5f, y + 0.5f, 0, 1, 1, 0))
+                        blackhole.consume(x + y);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void visibleRangeWalk(Blackhole blackhole) {
+
+        range.set(camera, grid.getWidth(), grid.getHeight(), 0);
+
+        for (int y = range.firstY; y <= range.lastY; y++) {
+
+            for (int x = range.firstX; x <= range.lastX; x++) {
+
+                if (grid.isSolid(x, y))
+                    blackhole.consume(x + y);
+            }
+        }
+    }
+}
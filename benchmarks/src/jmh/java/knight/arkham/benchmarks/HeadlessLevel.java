@@ -0,0 +1,62 @@
+package knight.arkham.benchmarks;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+
+import java.lang.reflect.Proxy;
+
+/** Loads levels without a window. The headless backend provides files, and GL calls made while creating the
+ * tileset texture go to a stub that does nothing and returns zeros. */
+final class HeadlessLevel {
+
+    private HeadlessLevel() {}
+
+    static synchronized void start() {
+
+        if (Gdx.app != null)
+            return;
+
+        HeadlessApplicationConfiguration configuration = new HeadlessApplicationConfiguration();
+        // no render loop, the benchmarks drive everything themselves
+        configuration.updatesPerSecond = -1;
+
+        new HeadlessApplication(new ApplicationAdapter() {}, configuration);
+
+        Gdx.gl = Gdx.gl20 = (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class[]{GL20.class},
+            (proxy, method, arguments) -> defaultValue(method.getReturnType()));
+    }
+
+    private static Object defaultValue(Class<?> type) {
+
+        if (type == int.class)
+            return 0;
+
+        if (type == boolean.class)
+            return false;
+
+        if (type == float.class)
+            return 0f;
+
+        if (type == long.class)
+            return 0L;
+
+        if (type == String.class)
+            return "";
+
+        return null;
+    }
+
+    static TiledMap load(String fileName) {
+
+        start();
+        return new TmxMapLoader().load(fileName);
+    }
+
+    static TiledMapTileLayer loadWalls(String fileName) {return (TiledMapTileLayer) load(fileName).getLayers().get("walls");}
+}
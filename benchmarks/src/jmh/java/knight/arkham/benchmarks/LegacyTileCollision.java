@@ -0,0 +1,135 @@
+package knight.arkham.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/** The collision code Platformer.update used before the collision grid, layer lookup by name, getTiles and the
+ * Rectangle overlap loops, kept as the baseline the new queries are measured against. */
+final class LegacyTileCollision {
+
+    private final TiledMap map;
+    private final Array<Rectangle> tiles = new Array<>();
+    private final Vector2 from = new Vector2();
+    private final Vector2 to = new Vector2();
+    private final Pool<Rectangle> rectPool = new Pool<>() {
+        @Override
+        protected Rectangle newObject() {
+            return new Rectangle();
+        }
+    };
+
+    LegacyTileCollision(TiledMap map) {this.map = map;}
+
+    /** @return true if the box hits a tile when moved dx along the x-axis */
+    boolean collideX(float x, float y, float width, float height, float dx) {
+
+        Rectangle koalaRect = rectPool.obtain();
+        koalaRect.set(x, y, width, height);
+
+        int startX, endX;
+
+        if (dx > 0)
+            startX = endX = (int)(x + width + dx);
+        else
+            startX = endX = (int)(x + dx);
+
+        getTiles(startX, (int)y, endX, (int)(y + height), tiles);
+
+        koalaRect.x += dx;
+
+        boolean hit = false;
+
+        for (Rectangle tile : tiles) {
+
+            if (koalaRect.overlaps(tile)) {
+                hit = true;
+                break;
+            }
+        }
+
+        rectPool.free(koalaRect);
+
+        return hit;
+    }
+
+    /** @return the y of the tile hit when moved dy along the y-axis, or -1 */
+    float collideY(float x, float y, float width, float height, float dy) {
+
+        Rectangle koalaRect = rectPool.obtain();
+        koalaRect.set(x, y, width, height);
+
+        int startY, endY;
+
+        if (dy > 0)
+            startY = endY = (int)(y + height + dy);
+        else
+            startY = endY = (int)(y + dy);
+
+        getTiles((int)x, startY, (int)(x + width), endY, tiles);
+
+        koalaRect.y += dy;
+
+        float hit = -1;
+
+        for (Rectangle tile : tiles) {
+
+            if (koalaRect.overlaps(tile)) {
+                hit = tile.y;
+                break;
+            }
+        }
+
+        rectPool.free(koalaRect);
+
+        return hit;
+    }
+
+    /** Line of sight the way it would be written on top of getTiles, every tile in the bounding box of the segment
+     * is tested against it. */
+    boolean hasLineOfSight(float fromX, float fromY, float toX, float toY) {
+
+        getTiles((int) Math.min(fromX, toX), (int) Math.min(fromY, toY), (int) Math.max(fromX, toX),
+            (int) Math.max(fromY, toY), tiles);
+
+        from.set(fromX, fromY);
+        to.set(toX, toY);
+
+        for (Rectangle tile : tiles) {
+
+            if (Intersector.intersectSegmentRectangle(from, to, tile))
+                return false;
+        }
+
+        return true;
+    }
+
+    private void getTiles(int startX, int startY, int endX, int endY, Array<Rectangle> tiles) {
+
+        TiledMapTileLayer layer = (TiledMapTileLayer)map.getLayers().get("walls");
+
+        rectPool.freeAll(tiles);
+
+        tiles.clear();
+
+        for (int y = startY; y <= endY; y++) {
+
+            for (int x = startX; x <= endX; x++) {
+
+                Cell cell = layer.getCell(x, y);
+
+                if (cell != null) {
+
+                    Rectangle rect = rectPool.obtain();
+                    rect.set(x, y, 1, 1);
+                    tiles.add(rect);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package knight.arkham.benchmarks;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import knight.arkham.level.BinaryLevel;
+import knight.arkham.level.LevelConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Parsing level1.tmx the way Platformer.create does, XML, base64 layers and the tileset image decode, against
+ * memory-mapping the precompiled level1.level. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapLoadBenchmark {
+
+    private FileHandle binaryLevel;
+
+    @Setup
+    public void setup() {
+
+        HeadlessLevel.start();
+
+        FileHandle directory = FileHandle.tempDirectory("levels");
+        FileHandle tmx = directory.child("level1.tmx");
+        Gdx.files.internal("level1.tmx").copyTo(tmx);
+
+        binaryLevel = directory.child("level1" + BinaryLevel.EXTENSION);
+        LevelConverter.convert(tmx.file(), binaryLevel.file());
+    }
+
+    @Benchmark
+    public TiledMap tmxMapLoader() {
+
+        TiledMap map = new TmxMapLoader().load("level1.tmx");
+        map.dispose();
+
+        return map;
+    }
+
+    @Benchmark
+    public BinaryLevel binaryLevel() {return BinaryLevel.load(binaryLevel);}
+}
@@ -0,0 +1,51 @@
+package knight.arkham.benchmarks;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import knight.arkham.particles.ParticleSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** A particle update at a steady population, every update replaces the particles that died with new ones. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParticleBenchmark {
+
+    private static final float DELTA = 1 / 60f;
+    private static final float LIFETIME = 1;
+
+    @Param({"1000", "8192", "65536"})
+    public int particleCount;
+
+    private ParticleSystem particles;
+    private int animation;
+
+    @Setup
+    public void setup() {
+
+        particles = new ParticleSystem(particleCount);
+        animation = particles.addAnimation(0.1f, new TextureRegion(), new TextureRegion());
+
+        // spread the ages, so about the same number dies every update
+        for (int i = 0; i < particleCount; i++)
+            particles.spawn(animation, 0, 0, 1, 10, 0.5f, LIFETIME * (i + 1) / particleCount, 5);
+    }
+
+    @Benchmark
+    public int update() {
+
+        particles.update(DELTA);
+
+        while (particles.spawn(animation, 0, 0, 1, 10, 0.5f, LIFETIME, 5)) {}
+
+        return particles.getLiveCount();
+    }
+}
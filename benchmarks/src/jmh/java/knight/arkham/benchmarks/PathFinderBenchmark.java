@@ -0,0 +1,85 @@
+package knight.arkham.benchmarks;
+
+import com.badlogic.gdx.math.RandomXS128;
+import com.badlogic.gdx.utils.IntArray;
+import knight.arkham.Koala;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.navigation.NavigationGraph;
+import knight.arkham.navigation.PathFinder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** Path queries between random nodes of level1, through a cache big enough to hold all of them and through one
+ * that always misses, a local patch of the graph, and building the whole graph. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PathFinderBenchmark {
+
+    private static final int QUERIES = 256;
+    private final Koala koala = new Koala();
+    private final RandomXS128 random = new RandomXS128(42);
+    private final IntArray nodes = new IntArray();
+    private CollisionGrid grid;
+    private NavigationGraph graph;
+    private PathFinder cachedFinder;
+    private PathFinder uncachedFinder;
+    private int[] starts;
+    private int[] goals;
+    private int query;
+
+    @Setup
+    public void setup() {
+
+        grid = CollisionGrid.fromLayer(HeadlessLevel.loadWalls("level1.tmx"));
+        graph = new NavigationGraph(grid, koala.width, koala.height);
+        cachedFinder = new PathFinder(graph, QUERIES);
+        uncachedFinder = new PathFinder(graph, 1);
+
+        for (int node = 0; node < grid.getWidth() * grid.getHeight(); node++) {
+
+            if (graph.isNode(node))
+                nodes.add(node);
+        }
+
+        starts = new int[QUERIES];
+        goals = new int[QUERIES];
+
+        for (int i = 0; i < QUERIES; i++) {
+
+            starts[i] = nodes.random();
+            goals[i] = nodes.random();
+        }
+    }
+
+    @Benchmark
+    public int[] cachedQuery() {
+
+        query = (query + 1) % QUERIES;
+        return cachedFinder.findPath(starts[query], goals[query]);
+    }
+
+    @Benchmark
+    public int[] uncachedQuery() {
+
+        query = (query + 1) % QUERIES;
+        return uncachedFinder.findPath(starts[query], goals[query]);
+    }
+
+    @Benchmark
+    public NavigationGraph patch() {
+
+        graph.patch(random.nextInt(grid.getWidth()));
+        return graph;
+    }
+
+    @Benchmark
+    public NavigationGraph build() {return new NavigationGraph(grid, koala.width, koala.height);}
+}
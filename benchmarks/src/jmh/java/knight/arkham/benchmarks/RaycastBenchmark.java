@@ -0,0 +1,106 @@
+package knight.arkham.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.RandomXS128;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.collision.RaycastBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/** Line of sight over the level1 walls for a batch of segments up to 16 tiles long, the getTiles + Rectangle box
+ * scan against the grid DDA one ray at a time, and the batch API on one thread and on the common pool. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RaycastBenchmark {
+
+    private static final float MAX_LENGTH = 16;
+
+    @Param({"256", "4096", "65536"})
+    public int rayCount;
+
+    private LegacyTileCollision legacy;
+    private CollisionGrid grid;
+    private final RaycastBatch serialBatch = new RaycastBatch();
+    private final RaycastBatch parallelBatch = new RaycastBatch(ForkJoinPool.commonPool());
+    private float[] originX;
+    private float[] originY;
+    private float[] directionX;
+    private float[] directionY;
+    private float[] maxDistance;
+    private int[] hitTiles;
+    private float[] hitDistances;
+
+    @Setup
+    public void setup() {
+
+        TiledMap map = HeadlessLevel.load("level1.tmx");
+        TiledMapTileLayer walls = (TiledMapTileLayer) map.getLayers().get("walls");
+
+        legacy = new LegacyTileCollision(map);
+        grid = CollisionGrid.fromLayer(walls);
+
+        originX = new float[rayCount];
+        originY = new float[rayCount];
+        directionX = new float[rayCount];
+        directionY = new float[rayCount];
+        maxDistance = new float[rayCount];
+        hitTiles = new int[rayCount];
+        hitDistances = new float[rayCount];
+
+        RandomXS128 random = new RandomXS128(42);
+
+        for (int i = 0; i < rayCount; i++) {
+
+            float angle = random.nextFloat() * MathUtils.PI2;
+
+            originX[i] = random.nextFloat() * walls.getWidth();
+            originY[i] = random.nextFloat() * walls.getHeight();
+            directionX[i] = MathUtils.cos(angle);
+            directionY[i] = MathUtils.sin(angle);
+            maxDistance[i] = random.nextFloat() * MAX_LENGTH;
+        }
+    }
+
+    @Benchmark
+    public void legacyBoxScan(Blackhole blackhole) {
+
+        for (int i = 0; i < rayCount; i++)
+            blackhole.consume(legacy.hasLineOfSight(originX[i], originY[i], originX[i] + directionX[i] * maxDistance[i],
+                originY[i] + directionY[i] * maxDistance[i]));
+    }
+
+    @Benchmark
+    public void gridLineOfSight(Blackhole blackhole) {
+
+        for (int i = 0; i < rayCount; i++)
+            blackhole.consume(grid.hasLineOfSight(originX[i], originY[i], originX[i] + directionX[i] * maxDistance[i],
+                originY[i] + directionY[i] * maxDistance[i]));
+    }
+
+    @Benchmark
+    public int[] serialBatch() {
+
+        serialBatch.cast(grid, originX, originY, directionX, directionY, maxDistance, rayCount, hitTiles, hitDistances);
+        return hitTiles;
+    }
+
+    @Benchmark
+    public int[] parallelBatch() {
+
+        parallelBatch.cast(grid, originX, originY, directionX, directionY, maxDistance, rayCount, hitTiles, hitDistances);
+        return hitTiles;
+    }
+}
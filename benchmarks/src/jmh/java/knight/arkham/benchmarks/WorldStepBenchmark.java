@@ -0,0 +1,62 @@
+package knight.arkham.benchmarks;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.RandomXS128;
+import knight.arkham.entity.EntityStore;
+import knight.arkham.entity.ParallelEntityStepper;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.InputState;
+import knight.arkham.simulation.Simulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/** A full simulation tick on level1 with the koala running and jumping and N actors falling onto the walls. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorldStepBenchmark {
+
+    @Param({"0", "100", "1000", "10000"})
+    public int entityCount;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Simulation simulation;
+
+    // the level gets blocks broken and actors settle, so every iteration starts from a fresh world
+    @Setup(Level.Iteration)
+    public void setup() {
+
+        TiledMapTileLayer walls = HeadlessLevel.loadWalls("level1.tmx");
+        GameWorld world = new GameWorld(walls);
+
+        if (parallel)
+            world.setParallelStepper(new ParallelEntityStepper());
+
+        EntityStore entities = world.getEntities();
+        RandomXS128 random = new RandomXS128(42);
+
+        for (int i = 0; i < entityCount; i++) {
+
+            int entity = entities.add(0, random.nextFloat() * walls.getWidth(), random.nextFloat() * walls.getHeight(),
+                0.75f, 0.75f);
+            entities.velocityX[entity] = random.nextFloat() * 20 - 10;
+        }
+
+        simulation = new Simulation(world);
+        simulation.getInput().setButtons(InputState.RIGHT | InputState.JUMP);
+    }
+
+    @Benchmark
+    public void step() {simulation.step();}
+}
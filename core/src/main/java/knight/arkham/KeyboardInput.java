@@ -0,0 +1,36 @@
+package knight.arkham;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
+import knight.arkham.simulation.InputState;
+
+/** Reads the keyboard into an {@link InputState}, this is the only place where the game polls {@code Gdx.input}. */
+public final class KeyboardInput {
+
+    private KeyboardInput() {}
+
+    public static void poll(InputState input) {
+
+        int buttons = 0;
+
+        if (Gdx.input.isKeyPressed(Keys.SPACE))
+            buttons |= InputState.JUMP;
+
+        if (Gdx.input.isKeyPressed(Keys.LEFT) || Gdx.input.isKeyPressed(Keys.A))
+            buttons |= InputState.LEFT;
+
+        if (Gdx.input.isKeyPressed(Keys.RIGHT) || Gdx.input.isKeyPressed(Keys.D))
+            buttons |= InputState.RIGHT;
+
+        if (Gdx.input.isKeyJustPressed(Keys.B))
+            buttons |= InputState.DEBUG;
+
+        if (Gdx.input.isKeyJustPressed(Keys.P))
+            buttons |= InputState.PROFILER;
+
+        input.setButtons(buttons);
+    }
+
+    /** Rewinding moves the simulation back in time, so it isn't part of the input of a tick. */
+    public static boolean isRewindHeld() {return Gdx.input.isKeyPressed(Keys.R);}
+}
@@ -1,66 +1,41 @@
 package knight.arkham;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
-import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.Animation;
-import com.badlogic.gdx.graphics.g2d.Batch;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import knight.arkham.simulation.InputState;
 
+/** Simulation state of the player, it holds no textures so it can be stepped without a GL context,
+ * drawing is done by {@link KoalaRenderer}. */
 public class Koala {
 
-    private enum PlayerState {STANDING, WALKING, JUMPING}
-    private PlayerState currentState = PlayerState.WALKING;
-    public float width;
-    public float height;
+    public enum PlayerState {STANDING, WALKING, JUMPING}
+    public static final float JUMP_VELOCITY = 40f;
+    public static final float MAX_VELOCITY = 10f;
+    public PlayerState currentState = PlayerState.WALKING;
+    // the size of a koala frame (18x26 pixels) converted into world units (1 unit == 16 pixels)
+    public final float width = 1 / 16f * 18;
+    public final float height = 1 / 16f * 26;
     public final Vector2 position = new Vector2(20, 20);
+    public final Vector2 previousPosition = new Vector2(20, 20);
     public final Vector2 velocity = new Vector2();
-    private float stateTimer;
-    private boolean isMovingRight = true;
+    public float stateTimer;
+    public boolean isMovingRight = true;
     public boolean isGrounded;
-    private final TextureRegion standingRegion;
-    private final TextureRegion jumpingRegion;
-    private final Animation<TextureRegion> walkingAnimation;
-    private TextureRegion actualRegion;
-    private final Texture sprite = new Texture("koalio.png");
 
-    public Koala() {
-
-        // load the koala frames, split them, and assign them to Animations
-        TextureRegion[] regions = TextureRegion.split(sprite, 18, 26)[0];
-
-        actualRegion = regions[0];
-
-        standingRegion = regions[0];
-        jumpingRegion = regions[1];
-
-        walkingAnimation = new Animation<>(0.15f, regions[2], regions[3], regions[4]);
-
-        // figure out the width and height of the koala for collision
-        // detection and rendering by converting a koala frames pixel
-        // size into world units (1 unit == 16 pixels)
-        width = 1 / 16f * regions[0].getRegionWidth();
-        height = 1 / 16f * regions[0].getRegionHeight();
-    }
-
-    public void update(float deltaTime) {
+    public void update(float deltaTime, InputState input) {
 
         stateTimer += deltaTime;
 
         // check input and apply to velocity & state
-        if (Gdx.input.isKeyPressed(Input.Keys.SPACE) && isGrounded) {
+        if (input.isPressed(InputState.JUMP) && isGrounded) {
 
-            float jumpVelocity = 40f;
-            velocity.y += jumpVelocity;
+            velocity.y += JUMP_VELOCITY;
             currentState = PlayerState.JUMPING;
             isGrounded = false;
         }
 
-        float maxVelocity = 10f;
-        if (Gdx.input.isKeyPressed(Input.Keys.LEFT) || Gdx.input.isKeyPressed(Input.Keys.A)) {
-            velocity.x = -maxVelocity;
+        if (input.isPressed(InputState.LEFT)) {
+            velocity.x = -MAX_VELOCITY;
 
             if (isGrounded)
                 currentState = PlayerState.WALKING;
@@ -68,8 +43,8 @@ public class Koala {
             isMovingRight = false;
         }
 
-        if (Gdx.input.isKeyPressed(Input.Keys.RIGHT) || Gdx.input.isKeyPressed(Input.Keys.D)) {
-            velocity.x = maxVelocity;
+        if (input.isPressed(InputState.RIGHT)) {
+            velocity.x = MAX_VELOCITY;
 
             if (isGrounded)
                 currentState = PlayerState.WALKING;
@@ -78,7 +53,7 @@ public class Koala {
         }
 
         // clamp the velocity to the maximum, x-axis only
-        velocity.x = MathUtils.clamp(velocity.x, -maxVelocity, maxVelocity);
+        velocity.x = MathUtils.clamp(velocity.x, -MAX_VELOCITY, MAX_VELOCITY);
 
         // If the velocity is < 1, set it to 0 and set state to Standing
         if (Math.abs(velocity.x) < 1) {
@@ -90,35 +65,8 @@ public class Koala {
         }
     }
 
-    private TextureRegion getAnimationRegion() {
-
-        switch (currentState) {
-
-            case WALKING:
-                return walkingAnimation.getKeyFrame(stateTimer, true);
-
-            case JUMPING:
-                return jumpingRegion;
-
-            default:
-                return standingRegion;
-        }
-    }
-
-    public void draw(Batch batch) {
-
-        actualRegion = getAnimationRegion();
-        // draw the koala, depending on the current velocity
-        // on the x-axis, draw the koala facing either right or left
-        batch.begin();
-
-        if (isMovingRight)
-            batch.draw(actualRegion, position.x, position.y, width, height);
-        else
-            batch.draw(actualRegion, position.x + width, position.y, -width, height);
-
-        batch.end();
-    }
+    /** Position between the last two simulation ticks, alpha is the leftover fraction of the fixed step. */
+    public float getInterpolatedX(float alpha) {return MathUtils.lerp(previousPosition.x, position.x, alpha);}
 
-    public void dispose() { sprite.dispose();}
+    public float getInterpolatedY(float alpha) {return MathUtils.lerp(previousPosition.y, position.y, alpha);}
 }
@@ -0,0 +1,59 @@
+package knight.arkham;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import knight.arkham.render.RenderQueue;
+
+/** Draws a {@link Koala}, owns its animations made from the koalio sprite sheet. */
+public class KoalaRenderer {
+
+    private final TextureRegion standingRegion;
+    private final TextureRegion jumpingRegion;
+    private final Animation<TextureRegion> walkingAnimation;
+    private TextureRegion actualRegion;
+
+    /** @param sheet the koalio image, usually packed in the atlas the map tiles are in */
+    public KoalaRenderer(TextureRegion sheet) {
+
+        // split the koala frames and assign them to Animations
+        TextureRegion[] regions = sheet.split(18, 26)[0];
+
+        actualRegion = regions[0];
+
+        standingRegion = regions[0];
+        jumpingRegion = regions[1];
+
+        walkingAnimation = new Animation<>(0.15f, regions[2], regions[3], regions[4]);
+    }
+
+    private TextureRegion getAnimationRegion(Koala koala) {
+
+        switch (koala.currentState) {
+
+            case WALKING:
+                return walkingAnimation.getKeyFrame(koala.stateTimer, true);
+
+            case JUMPING:
+                return jumpingRegion;
+
+            default:
+                return standingRegion;
+        }
+    }
+
+    /** Queues the koala over the whole map. */
+    public void draw(RenderQueue queue, Koala koala, float alpha) {
+
+        actualRegion = getAnimationRegion(koala);
+
+        float positionX = koala.getInterpolatedX(alpha);
+        float positionY = koala.getInterpolatedY(alpha);
+
+        // draw the koala, depending on the current velocity
+        // on the x-axis, draw the koala facing either right or left
+        if (koala.isMovingRight)
+            queue.add(actualRegion, positionX, positionY, koala.width, koala.height, RenderQueue.TOP_LAYER);
+        else
+            queue.add(actualRegion, positionX + koala.width, positionY, -koala.width, koala.height, RenderQueue.TOP_LAYER);
+    }
+}
@@ -0,0 +1,61 @@
+package knight.arkham;
+
+import java.io.File;
+
+/** Options given to {@link Platformer} by the launcher, every file is optional. */
+public class LaunchOptions {
+
+    /** File the profiler streams every frame to, as CSV or as JSON when it ends in .json. */
+    public File metricsFile;
+    /** File the input of every tick is written to when the game closes. */
+    public File recordFile;
+    /** Input log played back in real time instead of the keyboard. */
+    public File replayFile;
+    /** Server to play against as {@code host:port}, the local world becomes a prediction of the server's. */
+    public String serverAddress;
+    /** Plays against a server running in this process, with this one way latency, -1 to play offline. */
+    public int loopbackLatency = -1;
+    /** Only draws a frame when something on screen changes, the window stays as it is while the koala stands still. */
+    public boolean isIdleRendering;
+    /** Runs uncapped for this many frames, one tick each, then prints the throughput and exits, -1 to play. A replay
+     * ends the run when it finishes first. */
+    public int benchmarkFrames = -1;
+    /** Seed of a generated level played instead of level1, null to play level1. */
+    public Long levelSeed;
+    /** Watches the level files and applies the changes saved to them while the game runs. */
+    public boolean isHotReloading;
+
+    /** Reads {@code --metrics <file>}, {@code --record <file>}, {@code --replay <file>}, {@code --connect <host:port>},
+     * {@code --loopback <milliseconds>}, {@code --benchmark <frames>}, {@code --generate <seed>}, {@code --idle} and {@code --hot-reload}. */
+    public static LaunchOptions parse(String[] args) {
+
+        LaunchOptions options = new LaunchOptions();
+
+        for (int i = 0; i < args.length; i++) {
+
+            if (args[i].equals("--idle"))
+                options.isIdleRendering = true;
+            else if (args[i].equals("--hot-reload"))
+                options.isHotReloading = true;
+            // every other option takes a value
+            else if (i == args.length - 1)
+                break;
+            else if (args[i].equals("--metrics"))
+                options.metricsFile = new File(args[++i]);
+            else if (args[i].equals("--record"))
+                options.recordFile = new File(args[++i]);
+            else if (args[i].equals("--replay"))
+                options.replayFile = new File(args[++i]);
+            else if (args[i].equals("--connect"))
+                options.serverAddress = args[++i];
+            else if (args[i].equals("--loopback"))
+                options.loopbackLatency = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--benchmark"))
+                options.benchmarkFrames = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--generate"))
+                options.levelSeed = Long.parseLong(args[++i]);
+        }
+
+        return options;
+    }
+}
@@ -3,20 +3,57 @@ package knight.arkham;
 import com.badlogic.gdx.ApplicationListener;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputAdapter;
-import com.badlogic.gdx.Input.Keys;
-import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
-import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
 import com.badlogic.gdx.utils.Array;
-import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 import com.badlogic.gdx.utils.ScreenUtils;
+import knight.arkham.level.BinaryLevel;
+import knight.arkham.level.BinaryLevelLoader;
+import knight.arkham.level.ChunkStreamer;
+import knight.arkham.level.ChunkedLevel;
+import knight.arkham.level.LevelGenerator;
+import knight.arkham.level.LevelReloader;
+import knight.arkham.level.LevelWatcher;
+import knight.arkham.level.TileChangeMultiplexer;
+import knight.arkham.level.TileSets;
+import knight.arkham.net.LoopbackTransport;
+import knight.arkham.net.PredictingClient;
+import knight.arkham.net.ServerMain;
+import knight.arkham.net.SessionServer;
+import knight.arkham.net.Transport;
+import knight.arkham.net.UdpTransport;
+import knight.arkham.particles.BlockEffects;
+import knight.arkham.particles.ParticleSystem;
+import knight.arkham.profiling.BenchmarkReport;
+import knight.arkham.profiling.FrameProfiler;
+import knight.arkham.profiling.MetricsWriter;
+import knight.arkham.profiling.ProfilerOverlay;
+import knight.arkham.profiling.ProfilerSection;
+import knight.arkham.render.AtlasPacker;
+import knight.arkham.render.CachedTiledMapRenderer;
+import knight.arkham.render.DebugRenderer;
+import knight.arkham.render.LoadingScreen;
+import knight.arkham.render.PackedAtlasLoader;
+import knight.arkham.render.RenderQueue;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.InputLog;
+import knight.arkham.simulation.InputPlayer;
+import knight.arkham.simulation.InputRecorder;
+import knight.arkham.simulation.InputState;
+import knight.arkham.simulation.Simulation;
+import knight.arkham.simulation.SnapshotHistory;
+
+import java.io.File;
 
 /** Super Mario Brothers-like very basic platformer, using a tile map built using <a href="http://www.mapeditor.org/">Tiled</a> and a
  * tileset and sprites by <a href="http://www.vickiwenderlich.com/">Vicky Wenderlich</a></p>
@@ -25,226 +62,593 @@ import com.badlogic.gdx.utils.ScreenUtils;
  * @author mzechner */
 public class Platformer extends InputAdapter implements ApplicationListener {
 
+    private static final String LEVEL_NAME = "level1";
+    // ten seconds of ticks to rewind through, taken back two per frame
+    private static final int REWIND_TICKS = 600;
+    private static final int REWIND_SPEED = 2;
+    private static final String ATLAS_NAME = "sprites" + PackedAtlasLoader.SUFFIX;
+    // how long the render thread waits on the loader per frame while the loading screen is up
+    private static final int LOADING_MILLIS = 15;
+    // particles past this are dropped, the arrays for all of them are allocated up front
+    private static final int MAX_PARTICLES = 8192;
+    // a generated level is hours long at full speed, its collision grid is still a bit per tile
+    private static final int GENERATED_CHUNKS = 4096;
+    private static final int GENERATED_RADIUS = 2;
+    private AssetManager assets;
+    private LoadingScreen loadingScreen;
+    private long createTime;
+    private long firstFrameTime;
+    private String preloadingLevel;
+    private long preloadStart;
     private TiledMap map;
-    private OrthogonalTiledMapRenderer mapRenderer;
+    private ChunkedLevel chunkedLevel;
+    private ChunkStreamer chunkStreamer;
+    private TextureAtlas atlas;
+    // images of the level that aren't packed in the atlas
+    private final Array<Texture> levelTextures = new Array<>();
+    private CachedTiledMapRenderer mapRenderer;
+    // the renderer and anything else keeping state built from the tiles
+    private final TileChangeMultiplexer tileChangeListeners = new TileChangeMultiplexer();
     private OrthographicCamera camera;
     private Koala koala;
-    private final Array<Rectangle> tiles = new Array<>();
-    private static final float GRAVITY = -2.5f;
+    private KoalaRenderer koalaRenderer;
+    private final RenderQueue renderQueue = new RenderQueue();
+    private final ParticleSystem particles = new ParticleSystem(MAX_PARTICLES);
+    private Simulation simulation;
     private boolean isDebugMode;
-    private ShapeRenderer debugRenderer;
-    private Pool<Rectangle> rectPool;
+    private DebugRenderer debugRenderer;
+    private final LaunchOptions options;
+    private FrameProfiler profiler;
+    private ProfilerOverlay profilerOverlay;
+    private boolean isProfilerVisible;
+    private InputRecorder inputRecorder;
+    private InputPlayer inputPlayer;
+    private boolean isReplayReported;
+    private SessionServer loopbackServer;
+    private PredictingClient client;
+    private BenchmarkReport benchmark;
+    private LevelWatcher levelWatcher;
+    // set when the last frame found nothing to change, no frame is drawn until an input event or a resize
+    private boolean isWaiting;
+
+    public Platformer() {this(new LaunchOptions());}
+
+    public Platformer(LaunchOptions options) {this.options = options;}
 
     @Override
     public void create() {
 
-        // create the Koala we want to move around the world
-        koala = new Koala();
+        createTime = System.nanoTime();
 
-        // load the map, set the unit scale to 1/16 (1 unit == 16 pixels)
-        map = new TmxMapLoader().load("level1.tmx");
-        mapRenderer = new OrthogonalTiledMapRenderer(map, 1 / 16f);
+        // the profiler wraps Gdx.gl to count draw calls, so it comes before anything is drawn
+        profiler = new FrameProfiler(new GLProfiler(Gdx.graphics));
 
-        rectPool = new Pool<>() {
-            @Override
-            protected Rectangle newObject() {
-                return new Rectangle();
-            }
-        };
+        if (options.metricsFile != null)
+            profiler.setMetricsWriter(new MetricsWriter(options.metricsFile));
+
+        profilerOverlay = new ProfilerOverlay();
+        loadingScreen = new LoadingScreen();
+
+        // images are decoded and levels parsed on the loader thread, render only uploads the textures
+        InternalFileHandleResolver resolver = new InternalFileHandleResolver();
+
+        assets = new AssetManager(resolver);
+        assets.setLoader(BinaryLevel.class, new BinaryLevelLoader(resolver));
+        assets.setLoader(TextureAtlas.class, PackedAtlasLoader.SUFFIX, new PackedAtlasLoader(resolver));
+
+        // the sprites, the tiles and the image layers share one texture, so the whole frame is one batch pass without
+        // texture switches
+        assets.load(ATLAS_NAME, TextureAtlas.class, new PackedAtlasLoader.Parameters("koalio.png", "tileSet.png",
+            "koalio-single.png"));
+
+        if (options.levelSeed == null)
+            queueLevel(LEVEL_NAME);
+    }
+
+    /** Queues the file of the level the game would load, a chunked level is only mapped, so it isn't queued. */
+    private boolean queueLevel(String name) {
+
+        if (Gdx.files.internal(name + ChunkedLevel.EXTENSION).exists())
+            return false;
+
+        if (Gdx.files.internal(name + BinaryLevel.EXTENSION).exists())
+            assets.load(name + BinaryLevel.EXTENSION, BinaryLevel.class);
+        else if (Gdx.files.internal(name + ".tmx").exists())
+            assets.load(name + ".tmx", TiledMap.class);
+        else
+            return false;
+
+        return true;
+    }
+
+    /** The level after the given one, level1 is followed by level2. */
+    private static String getNextLevel(String name) {
+
+        int digits = name.length();
+
+        while (digits > 0 && Character.isDigit(name.charAt(digits - 1)))
+            digits--;
+
+        if (digits == name.length())
+            return null;
+
+        return name.substring(0, digits) + (Integer.parseInt(name.substring(digits)) + 1);
+    }
+
+    /** Builds the game from the loaded assets. */
+    private void start() {
+
+        atlas = assets.get(ATLAS_NAME, TextureAtlas.class);
+        koalaRenderer = new KoalaRenderer(atlas.findRegion("koalio"));
+
+        // create the world with the Koala we want to move around in it
+        GameWorld world = loadLevel();
+        koala = world.getKoala();
+
+        // set the unit scale to 1/16 (1 unit == 16 pixels), the tiles are cached per chunk and only rebuilt
+        // when a block breaks or a streamed chunk comes and goes
+        mapRenderer = new CachedTiledMapRenderer(map, 1 / 16f);
+        tileChangeListeners.addListener(mapRenderer);
+        world.setTileChangeListener(tileChangeListeners);
+        world.getEvents().subscribe(new BlockEffects(world.getEvents(), particles, atlas.findRegion(AtlasPacker.COIN_REGION)
+            .split(AtlasPacker.COIN_SIZE, AtlasPacker.COIN_SIZE)[0]));
+
+        if (chunkStreamer != null)
+            chunkStreamer.setTileChangeListener(tileChangeListeners);
+
+        world.setProfiler(profiler);
+        simulation = new Simulation(world);
+
+        if (options.serverAddress != null || options.loopbackLatency >= 0)
+            connect();
+        // a replay drives the koala from the log, the keyboard still toggles the debug views
+        else if (options.replayFile != null) {
+
+            inputPlayer = new InputPlayer(InputLog.read(new FileHandle(options.replayFile)));
+            simulation.setTickListener(inputPlayer);
+        }
+        else if (options.recordFile != null) {
+
+            inputRecorder = new InputRecorder();
+            simulation.setTickListener(inputRecorder);
+        }
+        // rewinding would break the timeline of a recording
+        else
+            simulation.setHistory(new SnapshotHistory(REWIND_TICKS));
 
         // create an orthographic camera, shows us 30x20 units of the world
         camera = new OrthographicCamera();
         camera.setToOrtho(false, 30, 20);
         camera.update();
 
-        debugRenderer = new ShapeRenderer();
+        debugRenderer = new DebugRenderer();
+
+        if (options.isHotReloading)
+            watchLevel();
+
+        if (options.benchmarkFrames >= 0)
+            benchmark = new BenchmarkReport(options.benchmarkFrames);
+        // a benchmark measures every frame it can draw, only play waits for something to change
+        else if (options.isIdleRendering)
+            Gdx.graphics.setContinuousRendering(false);
+    }
+
+    /** Development mode, edits saved to the level show up in the running game. The server of an online game
+     * wouldn't see them and a chunked level isn't parsed as a whole, so both are left out. */
+    private void watchLevel() {
+
+        File directory = Gdx.files.internal(LEVEL_NAME + ".tmx").file().getAbsoluteFile().getParentFile();
+
+        if (chunkStreamer != null || client != null || !directory.isDirectory()) {
+
+            Gdx.app.error("Reload", "Hot reload needs an offline game and the level files on disk");
+            return;
+        }
+
+        levelWatcher = new LevelWatcher(directory, LEVEL_NAME);
+    }
+
+    private GameWorld loadLevel() {
+
+        if (options.levelSeed != null)
+            return loadGeneratedLevel(options.levelSeed);
+
+        FileHandle chunkedFile = Gdx.files.internal(LEVEL_NAME + ChunkedLevel.EXTENSION);
+        FileHandle binaryFile = Gdx.files.internal(LEVEL_NAME + BinaryLevel.EXTENSION);
+
+        if (chunkedFile.exists())
+            return loadChunkedLevel(chunkedFile);
+
+        if (binaryFile.exists())
+            return loadBinaryLevel(assets.get(binaryFile.path(), BinaryLevel.class), binaryFile);
+
+        map = assets.get(LEVEL_NAME + ".tmx", TiledMap.class);
+
+        for (TiledMapTileSet tileSet : map.getTileSets()) {
+
+            TextureRegion image = atlas.findRegion(AtlasPacker.getRegionName(
+                tileSet.getProperties().get("imagesource", "", String.class)));
+
+            if (image != null)
+                TileSets.moveToAtlas(tileSet, image);
+        }
+
+        return new GameWorld((TiledMapTileLayer)map.getLayers().get("walls"));
+    }
+
+    /** A chunked level only keeps the chunks around the camera in memory. */
+    private GameWorld loadChunkedLevel(FileHandle file) {
+
+        chunkedLevel = ChunkedLevel.open(file.file());
+        TextureRegion image = getLevelImage(file, chunkedLevel.getTileSetImage());
+
+        chunkStreamer = new ChunkStreamer(chunkedLevel, TileSets.split(image, chunkedLevel.getTileWidth(),
+            chunkedLevel.getTileHeight(), chunkedLevel.getFirstTileId()), 1);
+        map = chunkStreamer.getMap();
+
+        GameWorld world = new GameWorld(chunkStreamer.getLayer("walls"), chunkedLevel.getGrid(), new Koala());
+        chunkStreamer.loadAround(world.getKoala().position.x);
+
+        return world;
+    }
+
+    /** A generated level is streamed like a chunked one, the chunks are generated ahead of the camera on a loader
+     * thread per core but the render thread. */
+    private GameWorld loadGeneratedLevel(long seed) {
+
+        LevelGenerator generator = new LevelGenerator(seed, GENERATED_CHUNKS);
+        // the generated tiles come from the tileset of level1
+        TextureRegion image = getLevelImage(Gdx.files.internal(LEVEL_NAME + ".tmx"), LevelGenerator.TILE_SET_IMAGE);
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        chunkStreamer = new ChunkStreamer(generator, TileSets.split(image, generator.getTileWidth(),
+            generator.getTileHeight(), 1), GENERATED_RADIUS, threads);
+        map = chunkStreamer.getMap();
+
+        GameWorld world = new GameWorld(chunkStreamer.getLayer("walls"), generator.getGrid(), new Koala());
+        chunkStreamer.loadAround(world.getKoala().position.x);
+
+        return world;
+    }
+
+    /** The precompiled level skips the xml and base64 parsing of the tmx. */
+    private GameWorld loadBinaryLevel(BinaryLevel level, FileHandle file) {
+
+        TextureRegion image = getLevelImage(file, level.getTileSetImage());
+
+        map = level.createMap(TileSets.split(image, level.getTileWidth(), level.getTileHeight(),
+            level.getFirstTileId()), path -> getLevelImage(file, path));
+
+        return new GameWorld((TiledMapTileLayer)map.getLayers().get("walls"), level.getGrid(), new Koala());
+    }
+
+    /** An image of the level, a tileset or the image of an image layer, from the atlas. Images that aren't packed
+     * are loaded as their own texture. */
+    private TextureRegion getLevelImage(FileHandle levelFile, String image) {
+
+        TextureRegion region = atlas.findRegion(AtlasPacker.getRegionName(image));
+
+        if (region != null)
+            return region;
+
+        Texture texture = new Texture(levelFile.sibling(image));
+        levelTextures.add(texture);
+
+        return new TextureRegion(texture);
     }
 
     @Override
     public void render() {
+
+        if (simulation == null) {
+
+            if (!assets.update(LOADING_MILLIS)) {
+
+                loadingScreen.draw(assets.getProgress());
+                return;
+            }
+
+            start();
+            loadingScreen.dispose();
+            loadingScreen = null;
+        }
+
+        profiler.beginFrame();
+
+        float frameTime = getFrameTime();
+
         // clear the screen
         ScreenUtils.clear(0.7f, 0.7f, 1.0f, 1);
 
-        // get the delta time
-        float deltaTime = Gdx.graphics.getDeltaTime();
+        profiler.begin(ProfilerSection.INPUT);
+
+        InputState input = simulation.getInput();
+        KeyboardInput.poll(input);
+
+        if (input.isPressed(InputState.DEBUG))
+            isDebugMode = !isDebugMode;
+
+        if (input.isPressed(InputState.PROFILER))
+            isProfilerVisible = !isProfilerVisible;
+
+        profiler.end(ProfilerSection.INPUT);
+
+        if (levelWatcher != null) {
+
+            profiler.begin(ProfilerSection.ASSETS);
+            reloadLevel();
+            profiler.end(ProfilerSection.ASSETS);
+        }
+
+        // run the fixed ticks covered by this frame (process input, collision detection, position update)
+        profiler.begin(ProfilerSection.UPDATE);
+
+        if (client != null)
+            client.receive();
 
-        // update the koala (process input, collision detection, position update)
-        update(deltaTime);
+        int ticks = 0;
+
+        if (inputPlayer == null && inputRecorder == null && client == null && KeyboardInput.isRewindHeld())
+            simulation.rewind(REWIND_SPEED);
+        else
+            ticks = simulation.advance(frameTime);
+
+        profiler.end(ProfilerSection.UPDATE);
+
+        if (inputPlayer != null)
+            reportReplay();
+
+        float alpha = simulation.getAlpha();
 
         // let the camera follow the koala, x-axis only
-        camera.position.x = koala.position.x;
+        camera.position.x = koala.getInterpolatedX(alpha);
         camera.update();
 
+        if (chunkStreamer != null) {
+
+            profiler.begin(ProfilerSection.STREAMING);
+            chunkStreamer.update(camera.position.x);
+            profiler.end(ProfilerSection.STREAMING);
+        }
+
+        // queue the koala
+        profiler.begin(ProfilerSection.SPRITES);
+        koalaRenderer.draw(renderQueue, koala, alpha);
+        profiler.end(ProfilerSection.SPRITES);
+
+        // the particles move with the frame, they aren't part of the simulated state, and are drawn over the map
+        // in its batch pass
+        profiler.begin(ProfilerSection.PARTICLES);
+        particles.update(frameTime);
+
+        if (particles.getLiveCount() > 0)
+            renderQueue.add(particles, RenderQueue.TOP_LAYER);
+
+        profiler.end(ProfilerSection.PARTICLES);
+        profiler.setParticles(particles.getLiveCount(), particles.getDroppedCount());
+
         // set the TiledMapRenderer view based on what the
-        // camera sees, and render the map
+        // camera sees, and render the map with the queued sprites
+        profiler.begin(ProfilerSection.MAP_RENDER);
         mapRenderer.setView(camera);
-        mapRenderer.render();
-
-        // render the koala
-        koala.draw(mapRenderer.getBatch());
+        mapRenderer.render(renderQueue);
+        profiler.end(ProfilerSection.MAP_RENDER);
 
         // render debug rectangles
-        if (isDebugMode)
-            renderDebug();
+        if (isDebugMode) {
+
+            profiler.begin(ProfilerSection.DEBUG_RENDER);
+            debugRenderer.draw(camera, simulation.getWorld());
+            profiler.end(ProfilerSection.DEBUG_RENDER);
+        }
+
+        // the next level loads in the background, update only takes a step when the loader thread has finished one
+        profiler.begin(ProfilerSection.ASSETS);
+
+        if (assets.update() && preloadingLevel != null) {
+
+            Gdx.app.log("Assets", "Preloaded " + preloadingLevel + " in " + (System.nanoTime() - preloadStart) / 1000000 + " ms");
+            preloadingLevel = null;
+        }
+
+        profiler.end(ProfilerSection.ASSETS);
+        profiler.endFrame();
+
+        if (firstFrameTime == 0)
+            logFirstFrame();
+
+        // drawn after the frame is measured, so the overlay doesn't show up in its own numbers
+        if (isProfilerVisible)
+            profilerOverlay.draw(profiler);
+
+        if (benchmark != null)
+            endBenchmarkFrame(ticks);
+        else if (options.isIdleRendering)
+            requestNextFrame(ticks);
     }
 
-    private void update(float deltaTime) {
+    /** The time the frame simulates. A benchmark runs one tick per frame, so runs do the same work however fast the
+     * machine draws them, and a frame drawn after a wait runs none, the wait would be played as ticks of the input
+     * that ended it. */
+    private float getFrameTime() {
 
-        if (deltaTime == 0)
-            return;
+        if (benchmark != null)
+            return Simulation.STEP;
 
-        if (deltaTime > 0.1f)
-            deltaTime = 0.1f;
+        return isWaiting ? 0 : Gdx.graphics.getDeltaTime();
+    }
 
-        koala.update(deltaTime);
+    /** Asks for another frame unless nothing on screen can change without input, then the next frame waits for an
+     * input event. The frame after a wait ran no ticks, so it always asks for the one that runs them. */
+    private void requestNextFrame(int ticks) {
 
-        if (Gdx.input.isKeyJustPressed(Keys.B))
-            isDebugMode = !isDebugMode;
+        isWaiting = ticks > 0 && isStill();
 
-        // apply gravity if we are falling
-        koala.velocity.add(0, GRAVITY);
+        if (!isWaiting)
+            Gdx.graphics.requestRendering();
+    }
 
-        // multiply by delta time, so we know how far we go
-        // in this frame
-        koala.velocity.scl(deltaTime);
+    /** The koala stands still with no key down and nothing else moves, drawing the frame again gives the same
+     * picture. */
+    private boolean isStill() {
 
-        // perform collision detection & response, on each axis, separately
-        // if the koala is moving right, check the tiles to the right of it's
-        // right bounding box edge, otherwise check the ones to the left
-        Rectangle koalaRect = rectPool.obtain();
-        koalaRect.set(koala.position.x, koala.position.y, koala.width, koala.height);
+        return simulation.getInput().getButtons() == 0 && !KeyboardInput.isRewindHeld()
+            && koala.velocity.isZero() && koala.position.equals(koala.previousPosition)
+            && simulation.getWorld().getEntities().count == 0 && particles.getLiveCount() == 0
+            && mapRenderer.getDrawnAnimatedTiles() == 0 && client == null && inputPlayer == null
+            && !isProfilerVisible && preloadingLevel == null
+            && (chunkStreamer == null || chunkStreamer.getPendingCount() == 0);
+    }
 
-        int startX, startY, endX, endY;
+    private void endBenchmarkFrame(int ticks) {
 
-        if (koala.velocity.x > 0)
-            startX = endX = (int)(koala.position.x + koala.width + koala.velocity.x);
+        benchmark.add(profiler, ticks);
 
-        else
-            startX = endX = (int)(koala.position.x + koala.velocity.x);
+        if (benchmark.isFinished() || inputPlayer != null && inputPlayer.isFinished()) {
 
-        startY = (int)(koala.position.y);
-        endY = (int)(koala.position.y + koala.height);
+            benchmark.log();
+            benchmark = null;
+            Gdx.app.exit();
+        }
+    }
 
-        getTiles(startX, startY, endX, endY, tiles);
+    /** Applies the level the watcher parsed since the last frame, if any. Only the cells that changed are set, the
+     * koala keeps its position and velocity. */
+    private void reloadLevel() {
 
-        koalaRect.x += koala.velocity.x;
+        BinaryLevel level = levelWatcher.poll();
 
-        for (Rectangle tile : tiles) {
+        if (level == null)
+            return;
 
-            if (koalaRect.overlaps(tile)) {
-                koala.velocity.x = 0;
-                break;
-            }
+        long start = System.nanoTime();
+        GameWorld world = simulation.getWorld();
+        int changed = LevelReloader.apply(level, map, world.getGrid(), tileChangeListeners);
+
+        if (changed == -1) {
+
+            Gdx.app.error("Reload", "The size of " + LEVEL_NAME + " changed, restart to load it");
+            return;
         }
 
-        koalaRect.x = koala.position.x;
+        // blocks broken before are back if the file has them, rewinding past the reload would break them again
+        world.forgetDestroyedBlocks();
+        simulation.clearHistory();
 
-        // if the koala is moving upwards, check the tiles to the top of its
-        // top bounding box edge, otherwise check the ones to the bottom
-        if (koala.velocity.y > 0)
-            startY = endY = (int)(koala.position.y + koala.height + koala.velocity.y);
-        else
-            startY = endY = (int)(koala.position.y + koala.velocity.y);
+        Gdx.app.log("Reload", "Reloaded " + LEVEL_NAME + ", " + changed + " cells changed, parsed in "
+            + levelWatcher.getParseNanos() / 1000000 + " ms and applied in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
 
-        startX = (int)(koala.position.x);
-        endX = (int)(koala.position.x + koala.width);
+    private void logFirstFrame() {
 
-        getTiles(startX, startY, endX, endY, tiles);
+        firstFrameTime = System.nanoTime();
+        Gdx.app.log("Startup", "First frame " + (firstFrameTime - createTime) / 1000000 + " ms after create");
 
-        koalaRect.y += koala.velocity.y;
+        String nextLevel = getNextLevel(LEVEL_NAME);
 
-        for (Rectangle tile : tiles) {
+        if (nextLevel != null && queueLevel(nextLevel)) {
 
-            if (koalaRect.overlaps(tile)) {
-                // we actually reset the koala y-position here,
-                // so it is just below/above the tile we collided with
-                // this removes bouncing :)
-                if (koala.velocity.y > 0) {
-                    koala.position.y = tile.y - koala.height;
-                    // we hit a block jumping upwards, let's destroy it!
-                    TiledMapTileLayer layer = (TiledMapTileLayer)map.getLayers().get("walls");
-                    layer.setCell((int)tile.x, (int)tile.y, null);
+            preloadingLevel = nextLevel;
+            preloadStart = firstFrameTime;
+        }
+    }
 
-                }
-                else {
+    /** The server owns the world, the local simulation predicts it and rolls back when the server disagrees. */
+    private void connect() {
 
-                    koala.position.y = tile.y + tile.height;
-                    // if we hit the ground, mark us as grounded, so we can jump
-                    koala.isGrounded = true;
-                }
+        if (options.levelSeed != null)
+            throw new GdxRuntimeException("Generated levels are only played offline");
 
-                koala.velocity.y = 0;
-                break;
-            }
+        Transport transport;
+
+        if (options.serverAddress != null) {
+
+            int separator = options.serverAddress.lastIndexOf(':');
+            transport = UdpTransport.connect(options.serverAddress.substring(0, separator),
+                Integer.parseInt(options.serverAddress.substring(separator + 1)));
         }
+        else {
 
-        rectPool.free(koalaRect);
+            FileHandle levelFile = Gdx.files.internal(LEVEL_NAME + BinaryLevel.EXTENSION);
 
-        // unscale the velocity by the inverse delta time and set
-        // the latest position
-        koala.position.add(koala.velocity);
-        koala.velocity.scl(1 / deltaTime);
+            if (!levelFile.exists())
+                throw new GdxRuntimeException("Loopback play needs " + levelFile + ", run core:convertLevels");
 
-        // Apply damping to the velocity on the x-axis, so we don't
-        // walk infinitely once a key was pressed
-        float koalaDamping = 0.87f;
-        koala.velocity.x *= koalaDamping;
-    }
+            LoopbackTransport[] pair = LoopbackTransport.createPair(options.loopbackLatency);
 
-    private void getTiles(int startX, int startY, int endX, int endY, Array<Rectangle> tiles) {
+            loopbackServer = new SessionServer();
+            // the loaded level is shared, the server world copies the collision rows it changes
+            BinaryLevel level = assets.isLoaded(levelFile.path()) ? assets.get(levelFile.path(), BinaryLevel.class)
+                : BinaryLevel.load(levelFile);
 
-        TiledMapTileLayer layer = (TiledMapTileLayer)map.getLayers().get("walls");
+            loopbackServer.addSession(ServerMain.createWorld(level), pair[1]);
+            loopbackServer.start();
 
-        rectPool.freeAll(tiles);
+            transport = pair[0];
+        }
 
-        tiles.clear();
+        client = new PredictingClient(simulation, transport);
+    }
 
-        for (int y = startY; y <= endY; y++) {
+    private void reportReplay() {
 
-            for (int x = startX; x <= endX; x++) {
+        if (isReplayReported)
+            return;
 
-                Cell cell = layer.getCell(x, y);
+        if (inputPlayer.getDivergedTick() != -1) {
 
-                if (cell != null) {
+            Gdx.app.error("Replay", "Diverged from the recording at tick " + inputPlayer.getDivergedTick());
+            isReplayReported = true;
+        }
+        else if (inputPlayer.isFinished()) {
 
-                    Rectangle rect = rectPool.obtain();
-                    rect.set(x, y, 1, 1);
-                    tiles.add(rect);
-                }
-            }
+            Gdx.app.log("Replay", "Finished " + inputPlayer.getPosition() + " ticks without diverging");
+            isReplayReported = true;
         }
     }
 
-    private void renderDebug() {
+    @Override
+    public void dispose () {
 
-        debugRenderer.setProjectionMatrix(camera.combined);
-        debugRenderer.begin(ShapeType.Line);
+        // closed before the run ended
+        if (benchmark != null)
+            benchmark.log();
 
-        debugRenderer.setColor(Color.RED);
-        debugRenderer.rect(koala.position.x, koala.position.y, koala.width, koala.height);
+        if (inputRecorder != null)
+            inputRecorder.getLog().write(options.recordFile);
 
-        debugRenderer.setColor(Color.YELLOW);
-        TiledMapTileLayer layer = (TiledMapTileLayer)map.getLayers().get("walls");
-//   This method check all the tiles on each row for every column
+        if (loopbackServer != null)
+            loopbackServer.stop();
 
-        for (int y = 0; y <= layer.getHeight(); y++) {
+        if (client != null)
+            client.close();
 
-            for (int x = 0; x <= layer.getWidth(); x++) {
+        if (levelWatcher != null)
+            levelWatcher.dispose();
 
-                Cell cell = layer.getCell(x, y);
+        // the game may be closed while it is still loading
+        if (mapRenderer != null) {
 
-                if (cell != null) {
-                    if (camera.frustum.boundsInFrustum(x + 0.5f, y + 0.5f, 0, 1, 1, 0))
-                        debugRenderer.rect(x, y, 1, 1);
-                }
-            }
+            mapRenderer.dispose();
+            debugRenderer.dispose();
         }
 
-        debugRenderer.end();
-    }
+        if (loadingScreen != null)
+            loadingScreen.dispose();
 
-    @Override
-    public void dispose () {koala.dispose();}
+        assets.dispose();
+        profilerOverlay.dispose();
+        profiler.dispose();
+
+        if (chunkStreamer != null)
+            chunkStreamer.dispose();
+
+        if (chunkedLevel != null)
+            chunkedLevel.dispose();
+
+        for (Texture texture : levelTextures)
+            texture.dispose();
+    }
 
     @Override
     public void resume () {}
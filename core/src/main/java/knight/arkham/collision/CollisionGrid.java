@@ -0,0 +1,250 @@
+package knight.arkham.collision;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+
+import java.util.Arrays;
+
+/** Solid tiles of the "walls" layer packed one bit per tile, each row is padded to a whole number of longs.
+ * It is built once from the layer and every collision query reads plain longs, so no Rectangles are pooled
+ * and no garbage is made per step. Tiles outside the grid are never solid, same as a missing cell.
+ * <p>
+ * Rows are separate arrays so grids can share them, see {@link #copyOnWrite()}. */
+public class CollisionGrid {
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[][] rows;
+    // rows that are this grid's own, the others are shared and copied before they change
+    private final boolean[] ownedRows;
+
+    public CollisionGrid(int width, int height) {
+
+        this.width = width;
+        this.height = height;
+        wordsPerRow = (width + 63) >>> 6;
+        rows = new long[height][wordsPerRow];
+        ownedRows = new boolean[height];
+
+        Arrays.fill(ownedRows, true);
+    }
+
+    private CollisionGrid(CollisionGrid other) {
+
+        width = other.width;
+        height = other.height;
+        wordsPerRow = other.wordsPerRow;
+        rows = other.rows.clone();
+        ownedRows = new boolean[height];
+    }
+
+    /** A grid with the same tiles that shares the rows of this one, both copy a row the first time they change it.
+     * Many worlds of the same level cost one grid plus the rows their destroyed blocks are in. */
+    public CollisionGrid copyOnWrite() {
+
+        Arrays.fill(ownedRows, false);
+
+        return new CollisionGrid(this);
+    }
+
+    private long[] getRowForWrite(int y) {
+
+        if (!ownedRows[y]) {
+
+            rows[y] = rows[y].clone();
+            ownedRows[y] = true;
+        }
+
+        return rows[y];
+    }
+
+    public static CollisionGrid fromLayer(TiledMapTileLayer layer) {
+
+        CollisionGrid grid = new CollisionGrid(layer.getWidth(), layer.getHeight());
+
+        for (int y = 0; y < grid.height; y++) {
+
+            for (int x = 0; x < grid.width; x++) {
+
+                if (layer.getCell(x, y) != null)
+                    grid.setSolid(x, y, true);
+            }
+        }
+
+        return grid;
+    }
+
+    public int getWidth() {return width;}
+
+    public int getHeight() {return height;}
+
+    /** Raw access to the packed rows for level files, row y starts at word {@code y * getWordsPerRow()} and
+     * tile x is bit {@code x % 64} of word {@code x / 64} of its row. */
+    public int getWordsPerRow() {return wordsPerRow;}
+
+    public long getWord(int index) {return rows[index / wordsPerRow][index % wordsPerRow];}
+
+    public void setWord(int index, long word) {getRowForWrite(index / wordsPerRow)[index % wordsPerRow] = word;}
+
+    public boolean isSolid(int x, int y) {
+
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return false;
+
+        return (rows[y][x >>> 6] & (1L << x)) != 0;
+    }
+
+    public void setSolid(int x, int y, boolean solid) {
+
+        // a shared row isn't copied for a write that changes nothing
+        if (x < 0 || y < 0 || x >= width || y >= height || isSolid(x, y) == solid)
+            return;
+
+        long[] row = getRowForWrite(y);
+
+        if (solid)
+            row[x >>> 6] |= 1L << x;
+        else
+            row[x >>> 6] &= ~(1L << x);
+    }
+
+    /** Copies the state of a single cell from the layer, call it after editing the layer outside the simulation. */
+    public void refresh(TiledMapTileLayer layer, int x, int y) {setSolid(x, y, layer.getCell(x, y) != null);}
+
+    /** Moves the box dx along the x-axis and checks the column at its leading edge, if the koala is moving right
+     * that is the column to the right of its right edge, otherwise the one to the left.
+     * @return true if a solid tile in that column overlaps the moved box */
+    public boolean sweepX(float x, float y, float width, float height, float dx) {
+
+        int column = getSweepColumn(x, width, dx);
+        float movedX = x + dx;
+
+        // the box only touches the column if they overlap on the x-axis, and only touches the rows it overlaps
+        if (!(movedX < column + 1f && movedX + width > column))
+            return false;
+
+        int endY = (int)(y + height);
+
+        for (int row = (int)y; row <= endY; row++) {
+
+            if (isSolid(column, row) && y < row + 1f && y + height > row)
+                return true;
+        }
+
+        return false;
+    }
+
+    /** Moves the box dy along the y-axis and checks the row at its leading edge, the one above its top edge
+     * when moving upwards, otherwise the one below.
+     * @return the packed index ({@code y * width + x}) of the leftmost solid tile in that row overlapping the moved
+     * box, or -1 if there is none */
+    public int sweepY(float x, float y, float width, float height, float dy) {
+
+        int row = getSweepRow(y, height, dy);
+        float movedY = y + dy;
+
+        if (!(movedY < row + 1f && movedY + height > row))
+            return -1;
+
+        int endX = (int)(x + width);
+
+        for (int column = (int)x; column <= endX; column++) {
+
+            if (isSolid(column, row) && x < column + 1f && x + width > column)
+                return row * this.width + column;
+        }
+
+        return -1;
+    }
+
+    /** Walks the tiles the ray passes through in order (DDA), up to the first solid one.
+     * @param directionX with directionY, doesn't need to be normalized
+     * @param hit filled in when the ray hits, can be null when only the tile is needed
+     * @return the packed index of the solid tile hit within maxDistance, or -1 if there is none. A ray that starts
+     * inside a solid tile hits it at distance 0 */
+    public int raycast(float originX, float originY, float directionX, float directionY, float maxDistance, RayHit hit) {
+
+        float length = (float) Math.sqrt(directionX * directionX + directionY * directionY);
+
+        if (length == 0)
+            return -1;
+
+        directionX /= length;
+        directionY /= length;
+
+        int x = (int) Math.floor(originX);
+        int y = (int) Math.floor(originY);
+        int stepX = directionX > 0 ? 1 : directionX < 0 ? -1 : 0;
+        int stepY = directionY > 0 ? 1 : directionY < 0 ? -1 : 0;
+
+        // distance along the ray to cross one tile on each axis, and to the next tile boundary
+        float deltaX = stepX == 0 ? Float.POSITIVE_INFINITY : Math.abs(1 / directionX);
+        float deltaY = stepY == 0 ? Float.POSITIVE_INFINITY : Math.abs(1 / directionY);
+        float nextX = stepX > 0 ? (x + 1 - originX) * deltaX : stepX < 0 ? (originX - x) * deltaX : Float.POSITIVE_INFINITY;
+        float nextY = stepY > 0 ? (y + 1 - originY) * deltaY : stepY < 0 ? (originY - y) * deltaY : Float.POSITIVE_INFINITY;
+        float distance = 0;
+        int normalX = 0;
+        int normalY = 0;
+
+        while (distance <= maxDistance) {
+
+            if (isSolid(x, y)) {
+
+                if (hit != null) {
+
+                    hit.tileX = x;
+                    hit.tileY = y;
+                    hit.distance = distance;
+                    hit.x = originX + directionX * distance;
+                    hit.y = originY + directionY * distance;
+                    hit.normalX = normalX;
+                    hit.normalY = normalY;
+                }
+
+                return y * width + x;
+            }
+
+            // outside the grid and moving away from it, nothing is solid out there
+            if (x < 0 && stepX <= 0 || x >= width && stepX >= 0 || y < 0 && stepY <= 0 || y >= height && stepY >= 0)
+                return -1;
+
+            if (nextX < nextY) {
+
+                distance = nextX;
+                nextX += deltaX;
+                x += stepX;
+                normalX = -stepX;
+                normalY = 0;
+            }
+            else {
+
+                distance = nextY;
+                nextY += deltaY;
+                y += stepY;
+                normalX = 0;
+                normalY = -stepY;
+            }
+        }
+
+        return -1;
+    }
+
+    /** True if no solid tile lies on the segment between the two points, solid tiles at either end count. */
+    public boolean hasLineOfSight(float fromX, float fromY, float toX, float toY) {
+
+        float dx = toX - fromX;
+        float dy = toY - fromY;
+
+        return raycast(fromX, fromY, dx, dy, (float) Math.sqrt(dx * dx + dy * dy), null) == -1;
+    }
+
+    /** The column {@link #sweepX} checks. */
+    public static int getSweepColumn(float x, float width, float dx) {return dx > 0 ? (int)(x + width + dx) : (int)(x + dx);}
+
+    /** The row {@link #sweepY} checks. */
+    public static int getSweepRow(float y, float height, float dy) {return dy > 0 ? (int)(y + height + dy) : (int)(y + dy);}
+
+    public int getTileX(int index) {return index % width;}
+
+    public int getTileY(int index) {return index / width;}
+}
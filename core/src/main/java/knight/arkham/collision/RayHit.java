@@ -0,0 +1,16 @@
+package knight.arkham.collision;
+
+/** Where a ray cast with {@link CollisionGrid#raycast} hit, reused by the caller from one cast to the next. */
+public class RayHit {
+
+    public int tileX;
+    public int tileY;
+    /** Along the ray from its origin, in tiles. */
+    public float distance;
+    public float x;
+    public float y;
+    /** The side of the tile that was entered, as a unit step out of it, 0 on both axes when the ray started inside
+     * the tile. */
+    public int normalX;
+    public int normalY;
+}
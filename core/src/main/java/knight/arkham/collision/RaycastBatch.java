@@ -0,0 +1,107 @@
+package knight.arkham.collision;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Casts many rays against a {@link CollisionGrid} at once, like the line of sight checks of every enemy or the
+ * projectiles of a tick. Rays come in and results go out through arrays the caller owns, ray i is the i-th element
+ * of each. With a pool, batches big enough are split over it, every ray only reads the grid, so the results are the
+ * same as casting them one after the other. */
+public class RaycastBatch {
+
+    // below this many rays forking costs more than it saves
+    private static final int MIN_PARALLEL_COUNT = 1024;
+    private static final int RAYS_PER_TASK = 512;
+    private final ForkJoinPool pool;
+    private final RayHit hit = new RayHit();
+    private CollisionGrid grid;
+    private float[] originX;
+    private float[] originY;
+    private float[] directionX;
+    private float[] directionY;
+    private float[] maxDistance;
+    private int[] hitTiles;
+    private float[] hitDistances;
+
+    /** Casts the rays on the calling thread. */
+    public RaycastBatch() {this(null);}
+
+    /** @param pool casts big batches on it, null to always cast on the calling thread */
+    public RaycastBatch(ForkJoinPool pool) {this.pool = pool;}
+
+    /** Casts the first count rays, the packed index of the tile each hits goes into hitTiles, -1 for a miss, and
+     * how far along the ray into hitDistances, which may be null when only the tiles are needed. */
+    public void cast(CollisionGrid grid, float[] originX, float[] originY, float[] directionX, float[] directionY,
+                     float[] maxDistance, int count, int[] hitTiles, float[] hitDistances) {
+
+        if (pool == null || count < MIN_PARALLEL_COUNT) {
+
+            castRange(grid, originX, originY, directionX, directionY, maxDistance, hitTiles, hitDistances, 0, count, hit);
+            return;
+        }
+
+        this.grid = grid;
+        this.originX = originX;
+        this.originY = originY;
+        this.directionX = directionX;
+        this.directionY = directionY;
+        this.maxDistance = maxDistance;
+        this.hitTiles = hitTiles;
+        this.hitDistances = hitDistances;
+
+        pool.invoke(new CastTask(0, count));
+
+        // the arrays belong to the caller, don't hold on to them
+        this.grid = null;
+        this.originX = null;
+        this.originY = null;
+        this.directionX = null;
+        this.directionY = null;
+        this.maxDistance = null;
+        this.hitTiles = null;
+        this.hitDistances = null;
+    }
+
+    private static void castRange(CollisionGrid grid, float[] originX, float[] originY, float[] directionX,
+                                  float[] directionY, float[] maxDistance, int[] hitTiles, float[] hitDistances,
+                                  int start, int end, RayHit hit) {
+
+        for (int i = start; i < end; i++) {
+
+            int tile = grid.raycast(originX[i], originY[i], directionX[i], directionY[i], maxDistance[i], hit);
+
+            hitTiles[i] = tile;
+
+            if (hitDistances != null)
+                hitDistances[i] = tile == -1 ? maxDistance[i] : hit.distance;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class CastTask extends RecursiveAction {
+
+        private final int start;
+        private final int end;
+
+        CastTask(int start, int end) {
+
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (end - start <= RAYS_PER_TASK) {
+
+                castRange(grid, originX, originY, directionX, directionY, maxDistance, hitTiles, hitDistances, start,
+                    end, new RayHit());
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+
+            invokeAll(new CastTask(start, middle), new CastTask(middle, end));
+        }
+    }
+}
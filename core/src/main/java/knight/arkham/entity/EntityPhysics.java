@@ -0,0 +1,68 @@
+package knight.arkham.entity;
+
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.simulation.BlockBreakQueue;
+import knight.arkham.simulation.GameWorld;
+
+/** Gravity and tile collision for the actors in an {@link EntityStore}, using the same axis separated
+ * response as the koala. Blocks hit by actors are only queued, the walls don't change while actors are stepped. */
+public final class EntityPhysics {
+
+    private EntityPhysics() {}
+
+    public static void step(EntityStore entities, CollisionGrid grid, float deltaTime, BlockBreakQueue breaks) {
+
+        for (int i = 0; i < entities.count; i++)
+            stepEntity(entities, grid, i, deltaTime, breaks);
+    }
+
+    public static void stepEntity(EntityStore entities, CollisionGrid grid, int index, float deltaTime,
+                                  BlockBreakQueue breaks) {
+
+        float x = entities.x[index];
+        float y = entities.y[index];
+        float width = entities.width[index];
+        float height = entities.height[index];
+
+        entities.velocityY[index] += GameWorld.GRAVITY;
+
+        // how far we go in this tick
+        float dx = entities.velocityX[index] * deltaTime;
+        float dy = entities.velocityY[index] * deltaTime;
+
+        if (grid.sweepX(x, y, width, height, dx)) {
+
+            dx = 0;
+            entities.velocityX[index] = 0;
+        }
+
+        int tile = grid.sweepY(x, y, width, height, dy);
+
+        if (tile != -1) {
+
+            int tileY = grid.getTileY(tile);
+
+            // snap the entity just below/above the tile it hit
+            if (dy > 0) {
+
+                y = tileY - height;
+
+                if ((entities.flags[index] & EntityStore.BREAKS_BLOCKS) != 0)
+                    breaks.add(tile);
+            }
+            else {
+
+                y = tileY + 1;
+                entities.isGrounded[index] = true;
+            }
+
+            dy = 0;
+            entities.velocityY[index] = 0;
+        }
+        else
+            entities.isGrounded[index] = false;
+
+        entities.x[index] = x + dx;
+        entities.y[index] = y + dy;
+    }
+}
@@ -0,0 +1,89 @@
+package knight.arkham.entity;
+
+import java.util.Arrays;
+
+/** Physics data of every actor (enemies, projectiles, pickups) kept as struct-of-arrays, entity i is the i-th
+ * element of each array. Entities are packed densely, removing one moves the last entity into its slot, so an
+ * index is only valid until the next {@link #remove(int)}. */
+public class EntityStore {
+
+    /** The actor destroys blocks it hits while moving upwards, like the koala does. */
+    public static final int BREAKS_BLOCKS = 1;
+    public int count;
+    public int[] type;
+    public int[] flags;
+    public float[] x;
+    public float[] y;
+    public float[] velocityX;
+    public float[] velocityY;
+    public float[] width;
+    public float[] height;
+    public boolean[] isGrounded;
+
+    public EntityStore(int capacity) {
+
+        type = new int[capacity];
+        flags = new int[capacity];
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        width = new float[capacity];
+        height = new float[capacity];
+        isGrounded = new boolean[capacity];
+    }
+
+    /** Adds an entity at rest and returns its index, the arrays grow if the store is full. */
+    public int add(int type, float x, float y, float width, float height) {
+
+        if (count == this.x.length)
+            resize(Math.max(8, count * 2));
+
+        int index = count++;
+
+        this.type[index] = type;
+        flags[index] = 0;
+        this.x[index] = x;
+        this.y[index] = y;
+        velocityX[index] = 0;
+        velocityY[index] = 0;
+        this.width[index] = width;
+        this.height[index] = height;
+        isGrounded[index] = false;
+
+        return index;
+    }
+
+    public void remove(int index) {
+
+        int last = --count;
+
+        if (index == last)
+            return;
+
+        type[index] = type[last];
+        flags[index] = flags[last];
+        x[index] = x[last];
+        y[index] = y[last];
+        velocityX[index] = velocityX[last];
+        velocityY[index] = velocityY[last];
+        width[index] = width[last];
+        height[index] = height[last];
+        isGrounded[index] = isGrounded[last];
+    }
+
+    public void clear() {count = 0;}
+
+    private void resize(int capacity) {
+
+        type = Arrays.copyOf(type, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        isGrounded = Arrays.copyOf(isGrounded, capacity);
+    }
+}
@@ -0,0 +1,7 @@
+package knight.arkham.entity;
+
+/** Receives every pair of overlapping entities once per step, first is always the lower index. */
+public interface OverlapListener {
+
+    void onOverlap(int first, int second);
+}
@@ -0,0 +1,138 @@
+package knight.arkham.entity;
+
+import com.badlogic.gdx.math.MathUtils;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.simulation.BlockBreakQueue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Steps actors on a fork-join pool. Actors are sorted into strips of tile columns and each task steps whole strips,
+ * so a task reads a narrow band of the collision grid. Every actor runs the same {@link EntityPhysics#stepEntity}
+ * against walls that don't change during the step, and block breaks are queued per strip and merged afterwards,
+ * so the results are bit-identical to {@link EntityPhysics#step}. */
+public class ParallelEntityStepper {
+
+    // below this many actors forking costs more than it saves
+    private static final int MIN_PARALLEL_COUNT = 512;
+    private static final int ENTITIES_PER_TASK = 256;
+    private final ForkJoinPool pool;
+    private final int stripWidth;
+    private int[] stripStart = new int[0];
+    private int[] order = new int[0];
+    private int[] strip = new int[0];
+    private BlockBreakQueue[] stripBreaks = new BlockBreakQueue[0];
+    private EntityStore entities;
+    private CollisionGrid grid;
+    private float deltaTime;
+
+    public ParallelEntityStepper() {this(ForkJoinPool.commonPool(), 16);}
+
+    /** @param stripWidth width of a strip in tile columns */
+    public ParallelEntityStepper(ForkJoinPool pool, int stripWidth) {
+
+        this.pool = pool;
+        this.stripWidth = stripWidth;
+    }
+
+    public void step(EntityStore entities, CollisionGrid grid, float deltaTime, BlockBreakQueue breaks) {
+
+        if (entities.count < MIN_PARALLEL_COUNT) {
+
+            EntityPhysics.step(entities, grid, deltaTime, breaks);
+            return;
+        }
+
+        this.entities = entities;
+        this.grid = grid;
+        this.deltaTime = deltaTime;
+
+        int stripCount = sortIntoStrips(entities, grid);
+
+        pool.invoke(new StripTask(0, stripCount));
+
+        // merge in strip order, the queue sorts them anyway before breaking anything
+        for (int i = 0; i < stripCount; i++)
+            breaks.drain(stripBreaks[i]);
+
+        this.entities = null;
+        this.grid = null;
+    }
+
+    /** Counting sort of the actor indices by strip, actors left or right of the map go to the first or last strip. */
+    private int sortIntoStrips(EntityStore entities, CollisionGrid grid) {
+
+        int stripCount = grid.getWidth() / stripWidth + 1;
+
+        if (stripStart.length != stripCount + 1) {
+
+            stripStart = new int[stripCount + 1];
+            stripBreaks = new BlockBreakQueue[stripCount];
+
+            for (int i = 0; i < stripCount; i++)
+                stripBreaks[i] = new BlockBreakQueue();
+        }
+
+        if (order.length < entities.count) {
+
+            order = new int[entities.count];
+            strip = new int[entities.count];
+        }
+
+        for (int i = 0; i <= stripCount; i++)
+            stripStart[i] = 0;
+
+        for (int i = 0; i < entities.count; i++) {
+
+            int index = MathUtils.clamp(MathUtils.floor(entities.x[i] / stripWidth), 0, stripCount - 1);
+            strip[i] = index;
+            stripStart[index + 1]++;
+        }
+
+        for (int i = 0; i < stripCount; i++)
+            stripStart[i + 1] += stripStart[i];
+
+        // stripStart is used as the write cursor and shifted back afterwards
+        for (int i = 0; i < entities.count; i++)
+            order[stripStart[strip[i]]++] = i;
+
+        for (int i = stripCount; i > 0; i--)
+            stripStart[i] = stripStart[i - 1];
+
+        stripStart[0] = 0;
+
+        return stripCount;
+    }
+
+    @SuppressWarnings("serial")
+    private final class StripTask extends RecursiveAction {
+
+        private final int firstStrip;
+        private final int endStrip;
+
+        StripTask(int firstStrip, int endStrip) {
+
+            this.firstStrip = firstStrip;
+            this.endStrip = endStrip;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (endStrip - firstStrip == 1 || stripStart[endStrip] - stripStart[firstStrip] <= ENTITIES_PER_TASK) {
+
+                for (int i = firstStrip; i < endStrip; i++) {
+
+                    for (int k = stripStart[i]; k < stripStart[i + 1]; k++)
+                        EntityPhysics.stepEntity(entities, grid, order[k], deltaTime, stripBreaks[i]);
+                }
+
+                return;
+            }
+
+            int middle = (firstStrip + endStrip) >>> 1;
+
+            invokeAll(new StripTask(firstStrip, middle), new StripTask(middle, endStrip));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package knight.arkham.entity;
+
+import com.badlogic.gdx.math.MathUtils;
+
+import java.util.Arrays;
+
+/** Uniform grid broadphase for entity vs entity overlap. The world is split in square cells, every cell is hashed
+ * into a fixed number of buckets and each entity is listed in the buckets of the cells its box covers. The buckets
+ * are rebuilt every step with a counting sort into flat int arrays, so building and querying cost grows linearly
+ * with the entity count and makes no garbage once the arrays are big enough. */
+public class SpatialHash {
+
+    private final float cellSize;
+    private final float inverseCellSize;
+    private final int mask;
+    private final int[] bucketStart;
+    private final int[] bucketCursor;
+    private int[] entries = new int[64];
+
+    /** @param cellSize side of a cell in world units, a bit larger than the typical entity works best
+     * @param bucketCount number of buckets, rounded up to a power of two */
+    public SpatialHash(float cellSize, int bucketCount) {
+
+        this.cellSize = cellSize;
+        inverseCellSize = 1 / cellSize;
+        int buckets = MathUtils.nextPowerOfTwo(bucketCount);
+        mask = buckets - 1;
+        bucketStart = new int[buckets + 1];
+        bucketCursor = new int[buckets];
+    }
+
+    public float getCellSize() {return cellSize;}
+
+    private int hash(int cellX, int cellY) {return (cellX * 73856093 ^ cellY * 19349663) & mask;}
+
+    private int cell(float position) {return MathUtils.floor(position * inverseCellSize);}
+
+    public void build(EntityStore entities) {
+
+        int[] start = bucketStart;
+        Arrays.fill(start, 0);
+
+        // first pass, count how many entries land in each bucket
+        int total = 0;
+
+        for (int i = 0; i < entities.count; i++) {
+
+            int endX = cell(entities.x[i] + entities.width[i]);
+            int endY = cell(entities.y[i] + entities.height[i]);
+
+            for (int cellY = cell(entities.y[i]); cellY <= endY; cellY++) {
+
+                for (int cellX = cell(entities.x[i]); cellX <= endX; cellX++) {
+
+                    start[hash(cellX, cellY) + 1]++;
+                    total++;
+                }
+            }
+        }
+
+        if (entries.length < total)
+            entries = new int[MathUtils.nextPowerOfTwo(total)];
+
+        for (int bucket = 0; bucket < bucketCursor.length; bucket++) {
+
+            start[bucket + 1] += start[bucket];
+            bucketCursor[bucket] = start[bucket];
+        }
+
+        // second pass, place the entities, entries of one entity in a bucket end up next to each other
+        for (int i = 0; i < entities.count; i++) {
+
+            int endX = cell(entities.x[i] + entities.width[i]);
+            int endY = cell(entities.y[i] + entities.height[i]);
+
+            for (int cellY = cell(entities.y[i]); cellY <= endY; cellY++) {
+
+                for (int cellX = cell(entities.x[i]); cellX <= endX; cellX++)
+                    entries[bucketCursor[hash(cellX, cellY)]++] = i;
+            }
+        }
+    }
+
+    /** Reports every overlapping pair exactly once, must be called after {@link #build(EntityStore)}. */
+    public void findOverlaps(EntityStore entities, OverlapListener listener) {
+
+        for (int i = 0; i < entities.count; i++) {
+
+            float x = entities.x[i];
+            float y = entities.y[i];
+            float width = entities.width[i];
+            float height = entities.height[i];
+            int endX = cell(x + width);
+            int endY = cell(y + height);
+
+            for (int cellY = cell(y); cellY <= endY; cellY++) {
+
+                for (int cellX = cell(x); cellX <= endX; cellX++) {
+
+                    int bucket = hash(cellX, cellY);
+                    int end = bucketStart[bucket + 1];
+
+                    for (int k = bucketStart[bucket]; k < end; k++) {
+
+                        int other = entries[k];
+
+                        // only test each pair from its lower index, and skip repeated entries of the same entity
+                        if (other <= i || (k > bucketStart[bucket] && entries[k - 1] == other))
+                            continue;
+
+                        float otherX = entities.x[other];
+                        float otherY = entities.y[other];
+
+                        if (x < otherX + entities.width[other] && x + width > otherX
+                            && y < otherY + entities.height[other] && y + height > otherY) {
+
+                            // a pair shares several cells, it is only reported from the cell
+                            // that holds the bottom left corner of the overlapping area
+                            if (cell(Math.max(x, otherX)) == cellX && cell(Math.max(y, otherY)) == cellY)
+                                listener.onOverlap(i, other);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package knight.arkham.events;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.utils.Array;
+import knight.arkham.Koala.PlayerState;
+
+/** Gameplay events of a world, queued while a tick runs and dispatched to the subscribers once at its end. The
+ * queue is a ring of preallocated parallel arrays, an event is a type and up to three ints and a cell, so
+ * publishing and dispatching allocate nothing. Events past the capacity are dropped and counted. Nothing is queued
+ * while there are no subscribers, like on a server or a host. */
+public class EventBus {
+
+    public enum Side {LEFT, RIGHT, TOP, BOTTOM}
+
+    private static final int COLLISION = 0;
+    private static final int BLOCK_BROKEN = 1;
+    private static final int LANDED = 2;
+    private static final int JUMPED = 3;
+    private static final int STATE_CHANGED = 4;
+    private static final Side[] SIDES = Side.values();
+    private static final PlayerState[] STATES = PlayerState.values();
+    private final Array<GameEventListener> subscribers = new Array<>(false, 8, GameEventListener.class);
+    private final int mask;
+    private final byte[] types;
+    private final int[] first;
+    private final int[] second;
+    private final int[] third;
+    private final Cell[] cells;
+    private int head;
+    private int size;
+    private long droppedCount;
+    private boolean isResimulating;
+
+    /** @param capacity rounded up to a power of two */
+    public EventBus(int capacity) {
+
+        int length = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+
+        mask = length - 1;
+        types = new byte[length];
+        first = new int[length];
+        second = new int[length];
+        third = new int[length];
+        cells = new Cell[length];
+    }
+
+    public void subscribe(GameEventListener subscriber) {subscribers.add(subscriber);}
+
+    public void unsubscribe(GameEventListener subscriber) {subscribers.removeValue(subscriber, true);}
+
+    public boolean hasSubscribers() {return subscribers.size > 0;}
+
+    /** Set while ticks the player has already seen run again, like after a rollback, so subscribers that play
+     * effects don't play them twice. Events are still delivered. */
+    public void setResimulating(boolean isResimulating) {this.isResimulating = isResimulating;}
+
+    public boolean isResimulating() {return isResimulating;}
+
+    public void collision(Side side, int tileX, int tileY) {publish(COLLISION, side.ordinal(), tileX, tileY, null);}
+
+    public void blockBroken(int x, int y, Cell cell) {publish(BLOCK_BROKEN, x, y, 0, cell);}
+
+    public void landed(int tileX, int tileY) {publish(LANDED, tileX, tileY, 0, null);}
+
+    public void jumped() {publish(JUMPED, 0, 0, 0, null);}
+
+    public void stateChanged(PlayerState previous, PlayerState current) {
+
+        publish(STATE_CHANGED, previous.ordinal(), current.ordinal(), 0, null);
+    }
+
+    private void publish(int type, int a, int b, int c, Cell cell) {
+
+        if (subscribers.size == 0)
+            return;
+
+        if (size == types.length) {
+
+            droppedCount++;
+            return;
+        }
+
+        int index = (head + size++) & mask;
+
+        types[index] = (byte) type;
+        first[index] = a;
+        second[index] = b;
+        third[index] = c;
+        cells[index] = cell;
+    }
+
+    /** Delivers every queued event to every subscriber, events published while dispatching are delivered too. */
+    public void dispatch() {
+
+        while (size > 0) {
+
+            // the slot is read out before it's freed, a subscriber may publish into it
+            int index = head;
+            int type = types[index];
+            int a = first[index];
+            int b = second[index];
+            int c = third[index];
+            Cell cell = cells[index];
+
+            cells[index] = null;
+            head = (head + 1) & mask;
+            size--;
+
+            for (int i = 0; i < subscribers.size; i++) {
+
+                GameEventListener listener = subscribers.items[i];
+
+                switch (type) {
+
+                    case COLLISION:
+                        listener.onCollision(SIDES[a], b, c);
+                        break;
+
+                    case BLOCK_BROKEN:
+                        listener.onBlockBroken(a, b, cell);
+                        break;
+
+                    case LANDED:
+                        listener.onLanded(a, b);
+                        break;
+
+                    case JUMPED:
+                        listener.onJumped();
+                        break;
+
+                    default:
+                        listener.onStateChanged(STATES[a], STATES[b]);
+                }
+            }
+        }
+    }
+
+    /** Drops the queued events without delivering them. */
+    public void clear() {
+
+        for (int i = 0; i < size; i++)
+            cells[(head + i) & mask] = null;
+
+        head = 0;
+        size = 0;
+    }
+
+    /** Events waiting for the end of the tick. */
+    public int size() {return size;}
+
+    /** Events dropped because the queue was full. */
+    public long getDroppedCount() {return droppedCount;}
+}
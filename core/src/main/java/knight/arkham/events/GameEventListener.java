@@ -0,0 +1,22 @@
+package knight.arkham.events;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import knight.arkham.Koala.PlayerState;
+
+/** Subscriber to the {@link EventBus} of a world, only the events it cares about need to be overridden. The
+ * events of a tick are delivered together at its end, in the order they happened. */
+public interface GameEventListener {
+
+    /** The koala ran into a solid tile with one of its sides. */
+    default void onCollision(EventBus.Side side, int tileX, int tileY) {}
+
+    /** A block was destroyed, by the koala or an actor, the cell is null when the world has no walls layer. */
+    default void onBlockBroken(int x, int y, Cell cell) {}
+
+    /** The koala came down on the tile after a jump. */
+    default void onLanded(int tileX, int tileY) {}
+
+    default void onJumped() {}
+
+    default void onStateChanged(PlayerState previous, PlayerState current) {}
+}
@@ -0,0 +1,56 @@
+package knight.arkham.host;
+
+import com.badlogic.gdx.files.FileHandle;
+import knight.arkham.level.BinaryLevel;
+import knight.arkham.simulation.Simulation;
+
+/** Runs a {@link WorldHost} with random bots for a while and prints the ticks per second of all worlds together.
+ * Run by the {@code core:host} Gradle task. */
+public final class HostMain {
+
+    // ticks each world runs between two progress checks
+    private static final int BATCH_TICKS = 60;
+
+    private HostMain() {}
+
+    public static void main(String[] args) {
+
+        if (args.length != 3)
+            throw new IllegalArgumentException("Usage: HostMain <level file> <worlds> <seconds>");
+
+        BinaryLevel level = BinaryLevel.load(new FileHandle(args[0]));
+        int worlds = Integer.parseInt(args[1]);
+        long duration = Long.parseLong(args[2]) * 1000000000L;
+
+        WorldHost host = new WorldHost(level.getGrid());
+
+        for (int i = 0; i < worlds; i++)
+            host.addWorld(new RandomBot(i));
+
+        long start = System.nanoTime();
+        long lastReport = start;
+        long lastTicks = 0;
+
+        while (System.nanoTime() - start < duration) {
+
+            host.runTicks(BATCH_TICKS);
+
+            long now = System.nanoTime();
+
+            if (now - lastReport >= 1000000000L) {
+
+                System.out.println(worlds + " worlds, " + perSecond(host.getTotalTicks() - lastTicks, now - lastReport) + " ticks/s");
+
+                lastReport = now;
+                lastTicks = host.getTotalTicks();
+            }
+        }
+
+        long ticksPerSecond = perSecond(host.getTotalTicks(), System.nanoTime() - start);
+
+        System.out.println("Total " + host.getTotalTicks() + " ticks, " + ticksPerSecond + " ticks/s, each world at "
+            + (long) (ticksPerSecond * Simulation.STEP / worlds) + "x real time");
+    }
+
+    private static long perSecond(long ticks, long nanos) {return (long) (ticks * 1e9 / nanos);}
+}
@@ -0,0 +1,34 @@
+package knight.arkham.host;
+
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.InputState;
+import knight.arkham.simulation.TickListener;
+
+import java.util.Random;
+
+/** Plays by holding a random mix of jump, left and right for a random number of ticks. Seeded, so a world driven
+ * by it runs the same every time. */
+public class RandomBot implements TickListener {
+
+    private static final int MAX_HOLD_TICKS = 60;
+    private final Random random;
+    private int buttons;
+    private int holdTicks;
+
+    public RandomBot(long seed) {random = new Random(seed);}
+
+    @Override
+    public void beforeTick(long tick, InputState input) {
+
+        if (holdTicks-- <= 0) {
+
+            buttons = random.nextInt(InputState.RIGHT << 1);
+            holdTicks = random.nextInt(MAX_HOLD_TICKS);
+        }
+
+        input.setButtons(buttons);
+    }
+
+    @Override
+    public void afterTick(long tick, InputState input, GameWorld world) {}
+}
@@ -0,0 +1,88 @@
+package knight.arkham.host;
+
+import com.badlogic.gdx.utils.Array;
+import knight.arkham.Koala;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.Simulation;
+import knight.arkham.simulation.TickListener;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** Runs many headless worlds of one level in a single JVM, for play-testing bots and load. The worlds share the
+ * rows of the level's collision grid and copy only the rows where they destroy blocks, and have no tile layer or
+ * textures at all. Worlds are stepped in batches on a fork-join pool, each task running all the ticks of a batch
+ * for a few worlds so a world stays in one core's cache. */
+public class WorldHost {
+
+    private static final int WORLDS_PER_TASK = 8;
+    private final ForkJoinPool pool;
+    private final CollisionGrid levelGrid;
+    private final Array<Simulation> simulations = new Array<>(false, 64);
+    private long totalTicks;
+    private int batchTicks;
+
+    public WorldHost(CollisionGrid levelGrid) {this(levelGrid, ForkJoinPool.commonPool());}
+
+    /** @param levelGrid the level as loaded, it is never changed itself */
+    public WorldHost(CollisionGrid levelGrid, ForkJoinPool pool) {
+
+        this.levelGrid = levelGrid;
+        this.pool = pool;
+    }
+
+    /** Adds a world driven by the given input, a bot or an input log player. */
+    public Simulation addWorld(TickListener input) {
+
+        Simulation simulation = new Simulation(new GameWorld(null, levelGrid.copyOnWrite(), new Koala()));
+        simulation.setTickListener(input);
+        simulations.add(simulation);
+
+        return simulation;
+    }
+
+    public int getWorldCount() {return simulations.size;}
+
+    public Simulation getWorld(int index) {return simulations.get(index);}
+
+    /** Ticks run by all worlds together since the host was created. */
+    public long getTotalTicks() {return totalTicks;}
+
+    /** Runs the given number of ticks in every world, returns when all of them are done. */
+    public void runTicks(int ticks) {
+
+        batchTicks = ticks;
+        pool.invoke(new WorldTask(0, simulations.size));
+        totalTicks += (long) ticks * simulations.size;
+    }
+
+    @SuppressWarnings("serial")
+    private final class WorldTask extends RecursiveAction {
+
+        private final int first;
+        private final int end;
+
+        WorldTask(int first, int end) {
+
+            this.first = first;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (end - first <= WORLDS_PER_TASK) {
+
+                for (int i = first; i < end; i++)
+                    simulations.get(i).runTicks(batchTicks);
+
+                return;
+            }
+
+            int middle = (first + end) >>> 1;
+
+            invokeAll(new WorldTask(first, middle), new WorldTask(middle, end));
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.ImageResolver;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapImageLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntMap;
+import knight.arkham.collision.CollisionGrid;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/** A level precompiled from a .tmx file by {@link LevelConverter}, loaded by memory-mapping the file and copying the
+ * layers out with bulk reads, without any XML or base64. The file holds
+ * <ul>
+ * <li>a header: magic, version, width, height, tile width, tile height, the layer names, the tileset image, the
+ * id of its first tile and the image layers</li>
+ * <li>the collision bitmap of the "walls" layer, 8 byte aligned</li>
+ * <li>every layer as {@code width * height} encoded cells, row by row from the bottom row up</li>
+ * </ul> */
+public class BinaryLevel {
+
+    public static final int MAGIC = 0x4B4C564C;
+    public static final int VERSION = 2;
+    public static final String EXTENSION = ".level";
+    private final int width;
+    private final int height;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final String[] layerNames;
+    private final String tileSetImage;
+    private final int firstTileId;
+    private final ImageLayer[] imageLayers;
+    private final int[][] layers;
+    private final CollisionGrid grid;
+
+    private BinaryLevel(ByteBuffer buffer) {
+
+        if (buffer.getInt() != MAGIC)
+            throw new GdxRuntimeException("Not a binary level file");
+
+        int version = buffer.getInt();
+
+        if (version != VERSION)
+            throw new GdxRuntimeException("Unsupported binary level version: " + version);
+
+        width = buffer.getInt();
+        height = buffer.getInt();
+        tileWidth = buffer.getInt();
+        tileHeight = buffer.getInt();
+
+        layerNames = new String[buffer.getInt()];
+
+        for (int i = 0; i < layerNames.length; i++)
+            layerNames[i] = readString(buffer);
+
+        tileSetImage = readString(buffer);
+        firstTileId = buffer.getInt();
+
+        imageLayers = new ImageLayer[buffer.getInt()];
+
+        for (int i = 0; i < imageLayers.length; i++) {
+
+            imageLayers[i] = new ImageLayer(buffer.getInt(), readString(buffer), readString(buffer), buffer.getFloat(),
+                buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.get() != 0);
+        }
+
+        buffer.position(align(buffer.position()));
+
+        grid = new CollisionGrid(width, height);
+
+        for (int i = 0; i < grid.getWordsPerRow() * height; i++)
+            grid.setWord(i, buffer.getLong());
+
+        IntBuffer cells = buffer.asIntBuffer();
+        layers = new int[layerNames.length][width * height];
+
+        for (int[] layer : layers)
+            cells.get(layer);
+    }
+
+    /** A level read from somewhere else than a binary file, like a .tmx parsed by {@link LevelConverter#read}. */
+    BinaryLevel(int width, int height, int tileWidth, int tileHeight, String[] layerNames, int[][] layers,
+                String tileSetImage, int firstTileId, ImageLayer[] imageLayers) {
+
+        this.width = width;
+        this.height = height;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.layerNames = layerNames;
+        this.layers = layers;
+        this.tileSetImage = tileSetImage;
+        this.firstTileId = firstTileId;
+        this.imageLayers = imageLayers;
+
+        grid = createGrid(width, height, layerNames, layers);
+    }
+
+    /** The collision grid of the walls layer, a cell is solid when it isn't empty. */
+    private static CollisionGrid createGrid(int width, int height, String[] layerNames, int[][] layers) {
+
+        int walls = -1;
+
+        for (int i = 0; i < layerNames.length; i++) {
+
+            if (layerNames[i].equals(ChunkedLevel.WALLS))
+                walls = i;
+        }
+
+        if (walls == -1)
+            throw new GdxRuntimeException("The level has no " + ChunkedLevel.WALLS + " layer");
+
+        CollisionGrid grid = new CollisionGrid(width, height);
+
+        for (int y = 0; y < height; y++) {
+
+            for (int x = 0; x < width; x++)
+                grid.setSolid(x, y, layers[walls][y * width + x] != TileCodec.EMPTY);
+        }
+
+        return grid;
+    }
+
+    /** Maps the file when it is on disk, files packed in a jar are read into memory instead. */
+    public static BinaryLevel load(FileHandle file) {
+
+        if (file.type() == FileType.Classpath || !file.file().exists())
+            return new BinaryLevel(ByteBuffer.wrap(file.readBytes()));
+
+        try (FileChannel channel = FileChannel.open(file.file().toPath(), StandardOpenOption.READ)) {
+            return new BinaryLevel(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't load binary level: " + file, exception);
+        }
+    }
+
+    public int getWidth() {return width;}
+
+    public int getHeight() {return height;}
+
+    public int getTileWidth() {return tileWidth;}
+
+    public int getTileHeight() {return tileHeight;}
+
+    public String[] getLayerNames() {return layerNames;}
+
+    public String getTileSetImage() {return tileSetImage;}
+
+    public int getFirstTileId() {return firstTileId;}
+
+    /** The image layers between the tile layers, in map order. */
+    public ImageLayer[] getImageLayers() {return imageLayers;}
+
+    /** Encoded cells of a layer, index {@code y * width + x}. */
+    public int[] getLayer(int index) {return layers[index];}
+
+    /** The collision grid read from the file, a new one for every load. */
+    public CollisionGrid getGrid() {return grid;}
+
+    static int align(int position) {return (position + 7) & ~7;}
+
+    private static String readString(ByteBuffer buffer) {
+
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getLayerIndex(String name) {
+
+        for (int i = 0; i < layerNames.length; i++) {
+
+            if (layerNames[i].equals(name))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /** Builds a map with a tile layer per level layer and the image layers between them in their place, plain tiles
+     * share one cell each.
+     * @param images finds the image of an image layer by its path relative to the level file */
+    public TiledMap createMap(TiledMapTileSet tileSet, ImageResolver images) {
+
+        TiledMap map = new TiledMap();
+        map.getTileSets().addTileSet(tileSet);
+
+        IntMap<Cell> sharedCells = TileCodec.createSharedCells(tileSet);
+        int tileLayer = 0;
+        int imageLayer = 0;
+
+        for (int index = 0; index < layers.length + imageLayers.length; index++) {
+
+            if (imageLayer < imageLayers.length && imageLayers[imageLayer].index == index)
+                map.getLayers().add(createImageLayer(imageLayers[imageLayer++], images));
+            else
+                map.getLayers().add(createTileLayer(tileLayer++, sharedCells));
+        }
+
+        return map;
+    }
+
+    private TiledMapTileLayer createTileLayer(int index, IntMap<Cell> sharedCells) {
+
+        TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+        layer.setName(layerNames[index]);
+
+        int[] cells = layers[index];
+
+        for (int y = 0; y < height; y++) {
+
+            for (int x = 0; x < width; x++) {
+
+                int value = cells[y * width + x];
+
+                if (value != TileCodec.EMPTY)
+                    layer.setCell(x, y, TileCodec.decode(value, sharedCells));
+            }
+        }
+
+        return layer;
+    }
+
+    /** Placed where TmxMapLoader places it, Tiled measures y from the top of the map to the top of the image. */
+    private TiledMapImageLayer createImageLayer(ImageLayer imageLayer, ImageResolver images) {
+
+        TextureRegion region = images.getImage(imageLayer.image);
+
+        if (region == null)
+            throw new GdxRuntimeException("Missing image of layer " + imageLayer.name + ": " + imageLayer.image);
+
+        TiledMapImageLayer layer = new TiledMapImageLayer(region, imageLayer.x,
+            height * tileHeight - imageLayer.y - region.getRegionHeight());
+
+        layer.setName(imageLayer.name);
+        layer.setOpacity(imageLayer.opacity);
+        layer.setVisible(imageLayer.isVisible);
+        layer.setOffsetX(imageLayer.offsetX);
+        layer.setOffsetY(imageLayer.offsetY);
+
+        return layer;
+    }
+
+    /** An image layer of the .tmx, only its image path is kept, the image is found when the map is built. */
+    public static final class ImageLayer {
+
+        /** Where the layer is among all the layers of the map. */
+        public final int index;
+        public final String name;
+        public final String image;
+        /** The top left corner of the image in pixels, y going down from the top of the map as in Tiled. */
+        public final float x;
+        public final float y;
+        public final float offsetX;
+        public final float offsetY;
+        public final float opacity;
+        public final boolean isVisible;
+
+        ImageLayer(int index, String name, String image, float x, float y, float offsetX, float offsetY, float opacity,
+                   boolean isVisible) {
+
+            this.index = index;
+            this.name = name;
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            this.offsetX = offsetX;
+            this.offsetY = offsetY;
+            this.opacity = opacity;
+            this.isVisible = isVisible;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+
+/** Loads a {@link BinaryLevel} through an AssetManager. The file is mapped and its layers copied on the loader
+ * thread, the level holds no GL resources, so nothing is left for the render thread. */
+public class BinaryLevelLoader extends AsynchronousAssetLoader<BinaryLevel, BinaryLevelLoader.Parameters> {
+
+    private BinaryLevel level;
+
+    public BinaryLevelLoader(FileHandleResolver resolver) {super(resolver);}
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, Parameters parameter) {return null;}
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+
+        level = BinaryLevel.load(file);
+    }
+
+    @Override
+    public BinaryLevel loadSync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+
+        BinaryLevel result = level;
+        level = null;
+
+        return result;
+    }
+
+    public static class Parameters extends AssetLoaderParameters<BinaryLevel> {}
+}
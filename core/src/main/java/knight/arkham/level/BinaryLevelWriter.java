@@ -0,0 +1,80 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import knight.arkham.collision.CollisionGrid;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/** Writes levels in the {@link BinaryLevel} format. */
+public final class BinaryLevelWriter {
+
+    private BinaryLevelWriter() {}
+
+    /** Writes a level parsed by {@link LevelConverter#read} or loaded from another file. */
+    public static void write(BinaryLevel level, File file) {
+
+        String[] layerNames = level.getLayerNames();
+        int height = level.getHeight();
+        CollisionGrid grid = level.getGrid();
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+
+            output.writeInt(BinaryLevel.MAGIC);
+            output.writeInt(BinaryLevel.VERSION);
+            output.writeInt(level.getWidth());
+            output.writeInt(height);
+            output.writeInt(level.getTileWidth());
+            output.writeInt(level.getTileHeight());
+            output.writeInt(layerNames.length);
+
+            for (String name : layerNames)
+                writeString(output, name);
+
+            writeString(output, level.getTileSetImage());
+            output.writeInt(level.getFirstTileId());
+            output.writeInt(level.getImageLayers().length);
+
+            for (BinaryLevel.ImageLayer imageLayer : level.getImageLayers()) {
+
+                output.writeInt(imageLayer.index);
+                writeString(output, imageLayer.name);
+                writeString(output, imageLayer.image);
+                output.writeFloat(imageLayer.x);
+                output.writeFloat(imageLayer.y);
+                output.writeFloat(imageLayer.offsetX);
+                output.writeFloat(imageLayer.offsetY);
+                output.writeFloat(imageLayer.opacity);
+                output.writeBoolean(imageLayer.isVisible);
+            }
+
+            // pad so the bitmap and the layers can be read as aligned longs and ints
+            while (output.size() != BinaryLevel.align(output.size()))
+                output.writeByte(0);
+
+            for (int i = 0; i < grid.getWordsPerRow() * height; i++)
+                output.writeLong(grid.getWord(i));
+
+            for (int i = 0; i < layerNames.length; i++) {
+
+                for (int value : level.getLayer(i))
+                    output.writeInt(value);
+            }
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't write binary level: " + file, exception);
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+}
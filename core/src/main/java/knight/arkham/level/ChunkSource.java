@@ -0,0 +1,33 @@
+package knight.arkham.level;
+
+import knight.arkham.collision.CollisionGrid;
+
+/** Where a {@link ChunkStreamer} gets the chunks of a level from, a {@link ChunkedLevel} file or a
+ * {@link LevelGenerator}. A chunk is a run of whole tile columns of every layer. */
+public interface ChunkSource {
+
+    int getWidth();
+
+    int getHeight();
+
+    int getChunkWidth();
+
+    int getChunkCount();
+
+    int getTileWidth();
+
+    int getTileHeight();
+
+    String[] getLayerNames();
+
+    /** The collision grid of the whole level, blocks destroyed in it stay destroyed when a chunk is read again. */
+    CollisionGrid getGrid();
+
+    /** Whether the grid already holds the walls of chunks never read, otherwise the streamer adds the walls of a
+     * chunk to it the first time the chunk is installed. */
+    boolean isGridComplete();
+
+    /** Reads a chunk into layers[layer][y * chunkWidth + localX]. Loader threads call it at the same time for
+     * different chunks. */
+    void readChunk(int chunk, int[][] layers);
+}
@@ -0,0 +1,299 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import knight.arkham.collision.CollisionGrid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Keeps the chunks around the camera resident in a map of {@link StreamingTileLayer}s. Chunks are read and turned
+ * into cells on background threads, and handed over to the render thread in {@link #update(float)}, so crossing a
+ * chunk border never waits on the disk or the generator. When more chunks than the budget are resident, the least
+ * recently used one outside the camera range is evicted.
+ *
+ * The collision grid of a generated level only gets the walls of a chunk once it was generated, so the chunks next
+ * to the camera are generated on the render thread if the loaders haven't delivered them yet, the koala never walks
+ * into a chunk the grid doesn't know. */
+public class ChunkStreamer implements Disposable {
+
+    private final ChunkSource level;
+    private final TiledMap map = new TiledMap();
+    private final StreamingTileLayer[] layers;
+    private final int wallsLayer;
+    private final IntMap<Cell> sharedCells;
+    private final int radius;
+    private final int maxResident;
+    private final boolean[] pending;
+    private final long[] lastUsed;
+    // chunks whose walls are in the collision grid
+    private final boolean[] inGrid;
+    private final IntArray resident = new IntArray();
+    private final ConcurrentLinkedQueue<LoadedChunk> loaded = new ConcurrentLinkedQueue<>();
+    private final ExecutorService loader;
+    private volatile RuntimeException failure;
+    private TileChangeListener tileChangeListener;
+    private long frame;
+    private int pendingCount;
+
+    /** Reads the chunks on a single loader thread. */
+    public ChunkStreamer(ChunkSource level, TiledMapTileSet tileSet, int radius) {this(level, tileSet, radius, 1);}
+
+    /** @param radius chunks kept loaded on each side of the one the camera is in, twice as many stay cached
+     * @param threads loader threads reading chunks at the same time */
+    public ChunkStreamer(ChunkSource level, TiledMapTileSet tileSet, int radius, int threads) {
+
+        this.level = level;
+        this.radius = radius;
+        maxResident = 2 * (2 * radius + 1);
+        sharedCells = TileCodec.createSharedCells(tileSet);
+
+        AtomicInteger threadCount = new AtomicInteger();
+
+        loader = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "chunk-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        map.getTileSets().addTileSet(tileSet);
+
+        String[] names = level.getLayerNames();
+        layers = new StreamingTileLayer[names.length];
+        int walls = -1;
+
+        for (int i = 0; i < names.length; i++) {
+
+            layers[i] = new StreamingTileLayer(level.getWidth(), level.getHeight(), level.getTileWidth(),
+                level.getTileHeight(), level.getChunkWidth());
+            layers[i].setName(names[i]);
+
+            map.getLayers().add(layers[i]);
+
+            if (names[i].equals(ChunkedLevel.WALLS))
+                walls = i;
+        }
+
+        wallsLayer = walls;
+        pending = new boolean[level.getChunkCount()];
+        lastUsed = new long[level.getChunkCount()];
+        inGrid = new boolean[level.getChunkCount()];
+
+        if (level.isGridComplete())
+            Arrays.fill(inGrid, true);
+    }
+
+    public TiledMap getMap() {return map;}
+
+    public StreamingTileLayer getLayer(String name) {return (StreamingTileLayer) map.getLayers().get(name);}
+
+    public int getResidentCount() {return resident.size;}
+
+    /** Chunks requested from the loader thread and not installed yet. */
+    public int getPendingCount() {return pendingCount;}
+
+    /** Told about the columns of every chunk installed or evicted. */
+    public void setTileChangeListener(TileChangeListener tileChangeListener) {this.tileChangeListener = tileChangeListener;}
+
+    private void notifyChunkChanged(int chunk) {
+
+        if (tileChangeListener == null)
+            return;
+
+        for (StreamingTileLayer layer : layers)
+            tileChangeListener.onTilesChanged(layer, chunk * level.getChunkWidth(), 0, level.getChunkWidth(),
+                level.getHeight());
+    }
+
+    /** Reads the chunks around x on the loader threads and waits for them, use it before the first frame so the
+     * level isn't empty. */
+    public void loadAround(float x) {
+
+        int center = getChunk(x);
+        List<Callable<LoadedChunk>> reads = new ArrayList<>();
+
+        for (int chunk = Math.max(0, center - radius); chunk <= Math.min(pending.length - 1, center + radius); chunk++) {
+
+            int index = chunk;
+
+            if (!layers[0].isResident(chunk))
+                reads.add(() -> read(index));
+        }
+
+        try {
+            for (Future<LoadedChunk> read : loader.invokeAll(reads))
+                install(read.get());
+        }
+        catch (InterruptedException | ExecutionException exception) {
+            throw new GdxRuntimeException("Couldn't load the chunks around " + x, exception);
+        }
+    }
+
+    /** Call once per frame with the camera position, requests missing chunks and installs the ones read since. */
+    public void update(float cameraX) {
+
+        if (failure != null)
+            throw failure;
+
+        frame++;
+
+        int center = getChunk(cameraX);
+        int first = Math.max(0, center - radius);
+        int last = Math.min(pending.length - 1, center + radius);
+
+        for (int chunk = first; chunk <= last; chunk++) {
+
+            lastUsed[chunk] = frame;
+
+            if (!layers[0].isResident(chunk) && !pending[chunk])
+                request(chunk);
+        }
+
+        LoadedChunk chunk;
+
+        while ((chunk = loaded.poll()) != null)
+            install(chunk);
+
+        // the reads still on their way are installed again when they arrive, the grid keeps what changed since
+        for (int i = Math.max(0, center - 1); i <= Math.min(pending.length - 1, center + 1); i++) {
+
+            if (!inGrid[i])
+                install(read(i));
+        }
+
+        evict(first, last);
+    }
+
+    private int getChunk(float x) {return MathUtils.clamp(MathUtils.floor(x) / level.getChunkWidth(), 0, pending.length - 1);}
+
+    private void request(int chunk) {
+
+        pending[chunk] = true;
+        pendingCount++;
+
+        loader.execute(() -> {
+            try {
+                loaded.add(read(chunk));
+            }
+            catch (RuntimeException exception) {
+                failure = exception;
+            }
+        });
+    }
+
+    /** Reads and decodes a chunk, safe to run off the render thread since it only reads shared state. */
+    private LoadedChunk read(int chunk) {
+
+        int cellCount = level.getChunkWidth() * level.getHeight();
+        int[][] values = new int[layers.length][cellCount];
+
+        level.readChunk(chunk, values);
+
+        Cell[][] cells = new Cell[layers.length][cellCount];
+
+        for (int layer = 0; layer < layers.length; layer++) {
+
+            for (int i = 0; i < cellCount; i++)
+                cells[layer][i] = TileCodec.decode(values[layer][i], sharedCells);
+        }
+
+        return new LoadedChunk(chunk, cells);
+    }
+
+    private void install(LoadedChunk chunk) {
+
+        if (pending[chunk.index])
+            pendingCount--;
+
+        pending[chunk.index] = false;
+
+        if (wallsLayer != -1) {
+
+            CollisionGrid grid = level.getGrid();
+            Cell[] walls = chunk.cells[wallsLayer];
+            int chunkWidth = level.getChunkWidth();
+
+            for (int i = 0; i < walls.length; i++) {
+
+                int x = chunk.index * chunkWidth + i % chunkWidth;
+
+                // the first time a generated chunk comes in, its walls are the ones the grid is missing
+                if (!inGrid[chunk.index])
+                    grid.setSolid(x, i / chunkWidth, walls[i] != null);
+                // blocks destroyed while the chunk was away are only in the collision grid
+                else if (walls[i] != null && !grid.isSolid(x, i / chunkWidth))
+                    walls[i] = null;
+            }
+        }
+
+        inGrid[chunk.index] = true;
+
+        for (int layer = 0; layer < layers.length; layer++)
+            layers[layer].setChunk(chunk.index, chunk.cells[layer]);
+
+        if (!resident.contains(chunk.index))
+            resident.add(chunk.index);
+
+        lastUsed[chunk.index] = frame;
+
+        notifyChunkChanged(chunk.index);
+    }
+
+    private void evict(int first, int last) {
+
+        while (resident.size > maxResident) {
+
+            int oldest = -1;
+
+            for (int i = 0; i < resident.size; i++) {
+
+                int chunk = resident.get(i);
+
+                if (chunk >= first && chunk <= last)
+                    continue;
+
+                if (oldest == -1 || lastUsed[chunk] < lastUsed[resident.get(oldest)])
+                    oldest = i;
+            }
+
+            if (oldest == -1)
+                return;
+
+            int chunk = resident.removeIndex(oldest);
+
+            for (StreamingTileLayer layer : layers)
+                layer.setChunk(chunk, null);
+
+            notifyChunkChanged(chunk);
+        }
+    }
+
+    @Override
+    public void dispose() {loader.shutdownNow();}
+
+    private static final class LoadedChunk {
+
+        final int index;
+        final Cell[][] cells;
+
+        LoadedChunk(int index, Cell[][] cells) {
+
+            this.index = index;
+            this.cells = cells;
+        }
+    }
+}
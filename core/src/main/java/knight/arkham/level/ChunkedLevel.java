@@ -0,0 +1,179 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import knight.arkham.collision.CollisionGrid;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/** A level split into chunks of whole tile columns, opened without reading the chunks. The file holds
+ * <ul>
+ * <li>a header: magic, version, width, height, chunk width, tile width, tile height, the layer names,
+ * the tileset image and the id of its first tile</li>
+ * <li>the collision bitmap of the "walls" layer, it stays resident since it is only a bit per tile</li>
+ * <li>every chunk at a fixed size, for each layer {@code chunkWidth * height} encoded cells row by row</li>
+ * </ul>
+ * Chunks are read with positional reads, so several threads can read at once. */
+public class ChunkedLevel implements ChunkSource, Disposable {
+
+    public static final int MAGIC = 0x4B43484B;
+    public static final int VERSION = 2;
+    public static final String EXTENSION = ".chunks";
+    public static final String WALLS = "walls";
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int chunkWidth;
+    private final int tileWidth;
+    private final int tileHeight;
+    private final String[] layerNames;
+    private final String tileSetImage;
+    private final int firstTileId;
+    private final CollisionGrid grid;
+    private final long dataStart;
+    // a read buffer per loader thread
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocate(getChunkBytes()));
+
+    private ChunkedLevel(FileChannel channel) throws IOException {
+
+        this.channel = channel;
+
+        // not buffered, so the channel position is exactly where the header ends
+        DataInputStream input = new DataInputStream(Channels.newInputStream(channel));
+
+        if (input.readInt() != MAGIC)
+            throw new GdxRuntimeException("Not a chunked level file");
+
+        int version = input.readInt();
+
+        if (version != VERSION)
+            throw new GdxRuntimeException("Unsupported chunked level version: " + version);
+
+        width = input.readInt();
+        height = input.readInt();
+        chunkWidth = input.readInt();
+        tileWidth = input.readInt();
+        tileHeight = input.readInt();
+
+        layerNames = new String[input.readInt()];
+
+        for (int i = 0; i < layerNames.length; i++)
+            layerNames[i] = input.readUTF();
+
+        tileSetImage = input.readUTF();
+        firstTileId = input.readInt();
+
+        grid = new CollisionGrid(width, height);
+
+        int words = grid.getWordsPerRow() * height;
+        ByteBuffer bitmap = ByteBuffer.allocate(words * Long.BYTES);
+        long position = channel.position();
+
+        readFully(bitmap, position);
+
+        LongBuffer longs = bitmap.asLongBuffer();
+
+        for (int i = 0; i < words; i++)
+            grid.setWord(i, longs.get(i));
+
+        dataStart = position + bitmap.capacity();
+    }
+
+    public static ChunkedLevel open(File file) {
+
+        try {
+            return new ChunkedLevel(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't open chunked level: " + file, exception);
+        }
+    }
+
+    @Override
+    public int getWidth() {return width;}
+
+    @Override
+    public int getHeight() {return height;}
+
+    @Override
+    public int getChunkWidth() {return chunkWidth;}
+
+    @Override
+    public int getChunkCount() {return (width + chunkWidth - 1) / chunkWidth;}
+
+    @Override
+    public int getTileWidth() {return tileWidth;}
+
+    @Override
+    public int getTileHeight() {return tileHeight;}
+
+    @Override
+    public String[] getLayerNames() {return layerNames;}
+
+    public String getTileSetImage() {return tileSetImage;}
+
+    public int getFirstTileId() {return firstTileId;}
+
+    /** The collision grid of the whole level, read with the header. */
+    @Override
+    public CollisionGrid getGrid() {return grid;}
+
+    @Override
+    public boolean isGridComplete() {return true;}
+
+    public int getChunkBytes() {return layerNames.length * chunkWidth * height * Integer.BYTES;}
+
+    @Override
+    public void readChunk(int chunk, int[][] layers) {readChunk(chunk, layers, buffers.get());}
+
+    /** Reads a chunk into layers[layer][y * chunkWidth + localX], buffer must hold {@link #getChunkBytes()}. */
+    public void readChunk(int chunk, int[][] layers, ByteBuffer buffer) {
+
+        buffer.clear().limit(getChunkBytes());
+
+        try {
+            readFully(buffer, dataStart + (long)chunk * getChunkBytes());
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't read chunk " + chunk, exception);
+        }
+
+        for (int[] cells : layers) {
+
+            for (int i = 0; i < cells.length; i++)
+                cells[i] = buffer.getInt();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+
+        while (buffer.hasRemaining()) {
+
+            int read = channel.read(buffer, position);
+
+            if (read < 0)
+                throw new GdxRuntimeException("Chunked level file is truncated");
+
+            position += read;
+        }
+
+        buffer.flip();
+    }
+
+    @Override
+    public void dispose() {
+
+        try {
+            channel.close();
+        }
+        catch (IOException ignored) {
+        }
+    }
+}
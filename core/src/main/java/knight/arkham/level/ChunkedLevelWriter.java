@@ -0,0 +1,66 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import knight.arkham.collision.CollisionGrid;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/** Writes levels in the {@link ChunkedLevel} format, {@link LevelConverter} writes one for every level wide enough
+ * to be worth streaming. */
+public final class ChunkedLevelWriter {
+
+    private ChunkedLevelWriter() {}
+
+    public static void write(BinaryLevel level, int chunkWidth, File file) {
+
+        String[] layerNames = level.getLayerNames();
+        int width = level.getWidth();
+        int height = level.getHeight();
+        int chunkCount = (width + chunkWidth - 1) / chunkWidth;
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+
+            output.writeInt(ChunkedLevel.MAGIC);
+            output.writeInt(ChunkedLevel.VERSION);
+            output.writeInt(width);
+            output.writeInt(height);
+            output.writeInt(chunkWidth);
+            output.writeInt(level.getTileWidth());
+            output.writeInt(level.getTileHeight());
+            output.writeInt(layerNames.length);
+
+            for (String name : layerNames)
+                output.writeUTF(name);
+
+            output.writeUTF(level.getTileSetImage());
+            output.writeInt(level.getFirstTileId());
+
+            CollisionGrid grid = level.getGrid();
+
+            for (int i = 0; i < grid.getWordsPerRow() * height; i++)
+                output.writeLong(grid.getWord(i));
+
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+
+                for (int layer = 0; layer < layerNames.length; layer++) {
+
+                    int[] cells = level.getLayer(layer);
+
+                    for (int y = 0; y < height; y++) {
+
+                        // the last chunk is padded with empty cells
+                        for (int x = chunk * chunkWidth; x < (chunk + 1) * chunkWidth; x++)
+                            output.writeInt(x < width ? cells[y * width + x] : TileCodec.EMPTY);
+                    }
+                }
+            }
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't write chunked level: " + file, exception);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Base64Coder;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/** Build time converter from Tiled .tmx files to {@link BinaryLevel} files, run by the {@code core:convertLevels}
+ * Gradle task. It reads the XML itself instead of going through TmxMapLoader, so it needs no libGDX application
+ * and no GL context for the tileset texture. */
+public final class LevelConverter {
+
+    // flags Tiled stores in the high bits of a tile gid
+    private static final int TMX_FLIP_HORIZONTALLY = 0x80000000;
+    private static final int TMX_FLIP_VERTICALLY = 0x40000000;
+    private static final int TMX_FLIP_DIAGONALLY = 0x20000000;
+    private static final int TMX_GID_MASK = 0x1FFFFFFF;
+    /** Levels this wide or wider are also written chunked. */
+    public static final int DEFAULT_CHUNKED_WIDTH = 1024;
+    // columns per chunk of a chunked level, two screens wide
+    private static final int CHUNK_WIDTH = 32;
+
+    private LevelConverter() {}
+
+    /** Converts every .tmx file of the directory given as first argument, the Gradle task only runs when one of them
+     * changed. Levels at least as many columns wide as the optional second argument, {@value #DEFAULT_CHUNKED_WIDTH}
+     * by default, are also written as a {@link ChunkedLevel} the game streams instead of loading it whole, unless they
+     * have image layers, which a chunked level doesn't keep. */
+    public static void main(String[] args) {
+
+        if (args.length < 1 || args.length > 2)
+            throw new IllegalArgumentException("Usage: LevelConverter <assets directory> [chunked width]");
+
+        File[] files = new File(args[0]).listFiles((directory, name) -> name.endsWith(".tmx"));
+
+        if (files == null)
+            throw new GdxRuntimeException("Not a directory: " + args[0]);
+
+        int chunkedWidth = args.length == 2 ? Integer.parseInt(args[1]) : DEFAULT_CHUNKED_WIDTH;
+
+        for (File tmx : files) {
+
+            String name = tmx.getName().substring(0, tmx.getName().length() - 4);
+            File output = new File(tmx.getParentFile(), name + BinaryLevel.EXTENSION);
+            File chunkedOutput = new File(tmx.getParentFile(), name + ChunkedLevel.EXTENSION);
+
+            long start = System.nanoTime();
+            BinaryLevel level = read(tmx);
+
+            BinaryLevelWriter.write(level, output);
+
+            // a chunked level has no image layers, the level is loaded whole to keep them
+            if (level.getWidth() >= chunkedWidth && level.getImageLayers().length == 0)
+                ChunkedLevelWriter.write(level, CHUNK_WIDTH, chunkedOutput);
+            // the game prefers a chunked level, one left from an older version of the level would hide this one
+            else if (chunkedOutput.exists() && !chunkedOutput.delete())
+                throw new GdxRuntimeException("Couldn't delete " + chunkedOutput);
+
+            System.out.println("Converted " + tmx.getName() + " in " + (System.nanoTime() - start) / 1000000 + " ms"
+                + (chunkedOutput.exists() ? ", chunked" : ""));
+        }
+    }
+
+    public static void convert(File tmx, File output) {BinaryLevelWriter.write(read(tmx), output);}
+
+    /** Parses a .tmx file into the layers a {@link BinaryLevel} has, without writing it anywhere. */
+    public static BinaryLevel read(File tmx) {
+
+        FileHandle file = new FileHandle(tmx);
+        Element root = new XmlReader().parse(file);
+
+        int width = root.getIntAttribute("width");
+        int height = root.getIntAttribute("height");
+
+        Element tileSet = root.getChildByName("tileset");
+
+        if (tileSet == null)
+            throw new GdxRuntimeException("The level has no tileset: " + tmx);
+
+        int tileSetCount = root.getChildrenByName("tileset").size;
+
+        // a .level keeps one tileset image and first id, the tiles of any other wouldn't decode
+        if (tileSetCount > 1)
+            throw new GdxRuntimeException("Levels can only have one tileset, " + tmx + " has " + tileSetCount);
+
+        int firstTileId = tileSet.getIntAttribute("firstgid", 1);
+
+        String tileSetImage;
+
+        // external tilesets keep the image in their own .tsx file, next to which its path is given
+        if (tileSet.hasAttribute("source")) {
+
+            String source = tileSet.getAttribute("source");
+            tileSet = new XmlReader().parse(file.sibling(source));
+            tileSetImage = Paths.get(source).resolveSibling(tileSet.getChildByName("image").getAttribute("source"))
+                .normalize().toString().replace('\\', '/');
+        }
+        else
+            tileSetImage = tileSet.getChildByName("image").getAttribute("source");
+
+        Array<String> names = new Array<>(String.class);
+        Array<int[]> layers = new Array<>(int[].class);
+        Array<BinaryLevel.ImageLayer> imageLayers = new Array<>(BinaryLevel.ImageLayer.class);
+
+        // the layers in map order, the renderer draws them and the sprites between them by their index
+        for (int i = 0; i < root.getChildCount(); i++) {
+
+            Element child = root.getChild(i);
+            int index = names.size + imageLayers.size;
+
+            if (child.getName().equals("layer")) {
+
+                names.add(child.getAttribute("name"));
+                layers.add(readLayer(child.getChildByName("data"), width, height));
+            }
+            else if (child.getName().equals("imagelayer"))
+                imageLayers.add(readImageLayer(child, index));
+            else if (child.getName().equals("objectgroup") || child.getName().equals("group"))
+                throw new GdxRuntimeException("Levels can't have " + child.getName() + " layers yet: " + tmx);
+        }
+
+        return new BinaryLevel(width, height, root.getIntAttribute("tilewidth"), root.getIntAttribute("tileheight"),
+            names.toArray(), layers.toArray(), tileSetImage, firstTileId, imageLayers.toArray());
+    }
+
+    /** Reads the attributes TmxMapLoader reads for an image layer. */
+    private static BinaryLevel.ImageLayer readImageLayer(Element element, int index) {
+
+        Element image = element.getChildByName("image");
+
+        if (image == null)
+            throw new GdxRuntimeException("Image layer without an image: " + element.getAttribute("name", ""));
+
+        float offsetX = element.getFloatAttribute("offsetx", 0);
+        float offsetY = element.getFloatAttribute("offsety", 0);
+
+        return new BinaryLevel.ImageLayer(index, element.getAttribute("name", ""), image.getAttribute("source"),
+            element.hasAttribute("offsetx") ? offsetX : element.getFloatAttribute("x", 0),
+            element.hasAttribute("offsety") ? offsetY : element.getFloatAttribute("y", 0), offsetX, offsetY,
+            element.getFloatAttribute("opacity", 1), element.getIntAttribute("visible", 1) == 1);
+    }
+
+    private static int[] readLayer(Element data, int width, int height) {
+
+        int[] gids = readGids(data, width * height);
+        int[] cells = new int[width * height];
+
+        for (int i = 0; i < gids.length; i++) {
+
+            // Tiled stores rows from the top, tile layers count them from the bottom
+            int x = i % width;
+            int y = height - 1 - i / width;
+
+            cells[y * width + x] = toCell(gids[i]);
+        }
+
+        return cells;
+    }
+
+    private static int[] readGids(Element data, int count) {
+
+        String encoding = data.getAttribute("encoding", null);
+        int[] gids = new int[count];
+
+        if ("csv".equals(encoding)) {
+
+            String[] values = data.getText().split(",");
+
+            for (int i = 0; i < count; i++)
+                gids[i] = (int) Long.parseLong(values[i].trim());
+
+            return gids;
+        }
+
+        if (!"base64".equals(encoding))
+            throw new GdxRuntimeException("Unsupported layer encoding: " + encoding);
+
+        byte[] bytes = Base64Coder.decode(data.getText().replaceAll("\\s", ""));
+        String compression = data.getAttribute("compression", null);
+        InputStream input = null;
+
+        try {
+            if (compression == null)
+                input = new ByteArrayInputStream(bytes);
+            else if (compression.equals("zlib"))
+                input = new InflaterInputStream(new ByteArrayInputStream(bytes));
+            else if (compression.equals("gzip"))
+                input = new GZIPInputStream(new ByteArrayInputStream(bytes));
+            else
+                throw new GdxRuntimeException("Unsupported layer compression: " + compression);
+
+            byte[] buffer = new byte[4];
+
+            for (int i = 0; i < count; i++) {
+
+                int read = 0;
+
+                while (read < 4) {
+
+                    int current = input.read(buffer, read, 4 - read);
+
+                    if (current == -1)
+                        throw new GdxRuntimeException("Layer data is truncated");
+
+                    read += current;
+                }
+
+                // gids are little endian
+                gids[i] = (buffer[0] & 0xFF) | (buffer[1] & 0xFF) << 8 | (buffer[2] & 0xFF) << 16 | (buffer[3] & 0xFF) << 24;
+            }
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't read layer data", exception);
+        }
+        finally {
+            StreamUtils.closeQuietly(input);
+        }
+
+        return gids;
+    }
+
+    /** Turns a Tiled gid into the flip and rotation TmxMapLoader would give the cell. */
+    private static int toCell(int gid) {
+
+        int id = gid & TMX_GID_MASK;
+
+        if (id == 0)
+            return TileCodec.EMPTY;
+
+        boolean flipHorizontally = (gid & TMX_FLIP_HORIZONTALLY) != 0;
+        boolean flipVertically = (gid & TMX_FLIP_VERTICALLY) != 0;
+
+        if ((gid & TMX_FLIP_DIAGONALLY) == 0)
+            return TileCodec.encode(id, flipHorizontally, flipVertically, Cell.ROTATE_0);
+
+        if (flipHorizontally && flipVertically)
+            return TileCodec.encode(id, true, false, Cell.ROTATE_270);
+
+        if (flipHorizontally)
+            return TileCodec.encode(id, false, false, Cell.ROTATE_270);
+
+        if (flipVertically)
+            return TileCodec.encode(id, false, false, Cell.ROTATE_90);
+
+        return TileCodec.encode(id, false, true, Cell.ROTATE_270);
+    }
+}
@@ -0,0 +1,252 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.math.RandomXS128;
+import knight.arkham.collision.CollisionGrid;
+
+import java.util.Arrays;
+
+/** Builds a very long level chunk by chunk from a seed, in the background and walls layers of level1 and with its
+ * tileset. A chunk only depends on the seed and its index, its random numbers are seeded from both and nothing is
+ * placed across its borders, so any chunk can be generated alone, on any thread, in any order, and comes out the
+ * same every time. That is what lets {@link ChunkStreamer} generate chunks ahead of the camera on several threads
+ * and drop them when they are left behind.
+ *
+ * The ground runs along the two bottom rows, broken by pits, with pipes, stairs and rows of blocks on it. Features
+ * keep to the middle of a chunk, so every chunk starts and ends on ground and any two of them fit together. The
+ * first chunk is left flat, it is where the koala lands. */
+public class LevelGenerator implements ChunkSource {
+
+    public static final int CHUNK_WIDTH = 32;
+    public static final int HEIGHT = 20;
+    public static final int TILE_SIZE = 16;
+    /** The tileset of level1, its tiles are numbered from 1 as in the .tmx. */
+    public static final String TILE_SET_IMAGE = "tileSet.png";
+    private static final String[] LAYER_NAMES = {"background", ChunkedLevel.WALLS};
+    private static final int BACKGROUND = 0;
+    private static final int WALLS = 1;
+    // tiles of the level1 tileset
+    private static final int GROUND = 142;
+    private static final int BRICK = 143;
+    private static final int QUESTION_BLOCK = 128;
+    private static final int PIPE_TOP_LEFT = 95;
+    private static final int PIPE_TOP_RIGHT = 96;
+    private static final int PIPE_LEFT = 111;
+    private static final int PIPE_RIGHT = 112;
+    // background pictures, rows from the top, 0 is no tile
+    private static final int[][] HILL = {
+        {0, 0, 12, 13, 14, 0, 0},
+        {0, 27, 28, 29, 30, 31, 0},
+        {42, 43, 44, 45, 46, 47, 48},
+        {58, 59, 60, 61, 62, 63, 64},
+        {74, 75, 76, 77, 78, 79, 80},
+        {74, 75, 76, 77, 78, 79, 80}};
+    private static final int[][] BUSH = {
+        {0, 91, 92, 93, 0},
+        {106, 107, 108, 109, 110},
+        {122, 123, 124, 125, 126},
+        {122, 123, 124, 125, 126}};
+    private static final int[][] CLOUD = {
+        {138, 139, 140, 141},
+        {154, 155, 156, 157}};
+    private static final int[][] SMALL_CLOUD = {
+        {161, 162, 163, 164},
+        {177, 178, 179, 180}};
+    // the top of the ground, pictures and features stand on the row above
+    private static final int GROUND_TOP = 1;
+    // the koala is a tile and a half tall, blocks leave it three rows to walk under
+    private static final int BLOCK_ROW = GROUND_TOP + 4;
+    // features stay this far from the chunk borders
+    private static final int MARGIN = 2;
+    private static final int PIT = 0;
+    private static final int PIPE = 1;
+    private static final int STAIRS = 2;
+    private static final int BLOCKS = 3;
+    private final long seed;
+    private final int chunkCount;
+    private final CollisionGrid grid;
+
+    /** @param chunkCount chunks in the level, the collision grid of all of them is a bit per tile */
+    public LevelGenerator(long seed, int chunkCount) {
+
+        this.seed = seed;
+        this.chunkCount = chunkCount;
+
+        grid = new CollisionGrid(getWidth(), HEIGHT);
+    }
+
+    public long getSeed() {return seed;}
+
+    @Override
+    public int getWidth() {return chunkCount * CHUNK_WIDTH;}
+
+    @Override
+    public int getHeight() {return HEIGHT;}
+
+    @Override
+    public int getChunkWidth() {return CHUNK_WIDTH;}
+
+    @Override
+    public int getChunkCount() {return chunkCount;}
+
+    @Override
+    public int getTileWidth() {return TILE_SIZE;}
+
+    @Override
+    public int getTileHeight() {return TILE_SIZE;}
+
+    @Override
+    public String[] getLayerNames() {return LAYER_NAMES;}
+
+    /** Empty until chunks are generated, the streamer adds the walls of each the first time it comes in. */
+    @Override
+    public CollisionGrid getGrid() {return grid;}
+
+    @Override
+    public boolean isGridComplete() {return false;}
+
+    @Override
+    public void readChunk(int chunk, int[][] layers) {
+
+        int[] background = layers[BACKGROUND];
+        int[] walls = layers[WALLS];
+
+        Arrays.fill(background, TileCodec.EMPTY);
+        Arrays.fill(walls, TileCodec.EMPTY);
+
+        for (int x = 0; x < CHUNK_WIDTH; x++) {
+
+            for (int y = 0; y <= GROUND_TOP; y++)
+                walls[y * CHUNK_WIDTH + x] = GROUND;
+        }
+
+        // the same numbers for the same chunk, whichever thread asks and whatever it generated before
+        RandomXS128 random = new RandomXS128(seed ^ (chunk + 1) * 0x9E3779B97F4A7C15L);
+
+        addScenery(background, random);
+
+        if (chunk > 0)
+            addFeatures(walls, random);
+    }
+
+    private static void addScenery(int[] background, RandomXS128 random) {
+
+        int[][] picture = random.nextBoolean() ? HILL : BUSH;
+
+        // one on the ground in the left half and a cloud or two up in the sky
+        stamp(background, picture, random.nextInt(CHUNK_WIDTH / 2 - picture[0].length), GROUND_TOP);
+        stamp(background, CLOUD, CHUNK_WIDTH / 2 + random.nextInt(CHUNK_WIDTH / 2 - CLOUD[0].length),
+            HEIGHT - 8 + random.nextInt(4));
+
+        if (random.nextBoolean())
+            stamp(background, SMALL_CLOUD, random.nextInt(CHUNK_WIDTH / 2 - SMALL_CLOUD[0].length),
+                HEIGHT - 6 + random.nextInt(3));
+    }
+
+    /** Places features left to right with gaps of ground between them, until the next one doesn't fit. */
+    private static void addFeatures(int[] walls, RandomXS128 random) {
+
+        int x = MARGIN + random.nextInt(4);
+
+        while (true) {
+
+            int feature = random.nextInt(4);
+            // the height of a pipe or of stairs, the width of a pit
+            int size = 2 + random.nextInt(3);
+            int width = getWidth(feature, size);
+
+            if (x + width > CHUNK_WIDTH - MARGIN)
+                return;
+
+            switch (feature) {
+
+                case PIT:
+                    addPit(walls, x, width);
+                    break;
+
+                case PIPE:
+                    addPipe(walls, x, size);
+                    break;
+
+                case STAIRS:
+                    addStairs(walls, x, size);
+                    break;
+
+                case BLOCKS:
+                    addBlocks(walls, x, width, random);
+                    break;
+            }
+
+            x += width + 3 + random.nextInt(5);
+        }
+    }
+
+    private static int getWidth(int feature, int size) {
+
+        if (feature == PIT)
+            return size;
+
+        if (feature == PIPE)
+            return 2;
+
+        if (feature == STAIRS)
+            return size * 2;
+
+        return size + 2;
+    }
+
+    private static void addPit(int[] walls, int x, int width) {
+
+        for (int column = x; column < x + width; column++) {
+
+            for (int y = 0; y <= GROUND_TOP; y++)
+                walls[y * CHUNK_WIDTH + column] = TileCodec.EMPTY;
+        }
+    }
+
+    private static void addPipe(int[] walls, int x, int height) {
+
+        int top = GROUND_TOP + height;
+
+        for (int y = GROUND_TOP + 1; y < top; y++) {
+
+            walls[y * CHUNK_WIDTH + x] = PIPE_LEFT;
+            walls[y * CHUNK_WIDTH + x + 1] = PIPE_RIGHT;
+        }
+
+        walls[top * CHUNK_WIDTH + x] = PIPE_TOP_LEFT;
+        walls[top * CHUNK_WIDTH + x + 1] = PIPE_TOP_RIGHT;
+    }
+
+    /** Steps up and down again, one tile high each so the koala can walk them with small jumps. */
+    private static void addStairs(int[] walls, int x, int steps) {
+
+        for (int i = 0; i < steps * 2; i++) {
+
+            int height = i < steps ? i + 1 : steps * 2 - i;
+
+            for (int y = GROUND_TOP + 1; y <= GROUND_TOP + height; y++)
+                walls[y * CHUNK_WIDTH + x + i] = GROUND;
+        }
+    }
+
+    private static void addBlocks(int[] walls, int x, int width, RandomXS128 random) {
+
+        for (int column = x; column < x + width; column++)
+            walls[BLOCK_ROW * CHUNK_WIDTH + column] = random.nextInt(4) == 0 ? QUESTION_BLOCK : BRICK;
+    }
+
+    /** Copies a picture into the layer with its bottom row at the given row. */
+    private static void stamp(int[] layer, int[][] picture, int x, int bottom) {
+
+        for (int row = 0; row < picture.length; row++) {
+
+            int y = bottom + picture.length - 1 - row;
+
+            for (int column = 0; column < picture[row].length; column++) {
+
+                if (picture[row][column] != 0)
+                    layer[y * CHUNK_WIDTH + x + column] = picture[row][column];
+            }
+        }
+    }
+}
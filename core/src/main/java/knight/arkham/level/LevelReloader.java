@@ -0,0 +1,81 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.utils.IntMap;
+import knight.arkham.collision.CollisionGrid;
+
+/** Brings a live map up to date with a reloaded version of its level, cell by cell. Every tile layer the two share
+ * is compared as encoded cells and only the cells that differ are set, so the caches of the renderer are only
+ * rebuilt where the level was edited and everything else in the world, like where the koala is, stays as it is. */
+public final class LevelReloader {
+
+    private LevelReloader() {}
+
+    /** Sets the cells of the map that differ from the level and tells the listener once per layer about the
+     * rectangle around the cells that changed in it, the grid follows the walls layer. Returns the number of cells changed, or -1 when the level is not the same size as the map,
+     * then nothing is changed.
+     * @param listener null when nothing caches the tiles */
+    public static int apply(BinaryLevel level, TiledMap map, CollisionGrid grid, TileChangeListener listener) {
+
+        int width = level.getWidth();
+        int height = level.getHeight();
+
+        if (width != grid.getWidth() || height != grid.getHeight())
+            return -1;
+
+        IntMap<Cell> sharedCells = new IntMap<>();
+
+        for (TiledMapTileSet tileSet : map.getTileSets())
+            sharedCells.putAll(TileCodec.createSharedCells(tileSet));
+
+        String[] names = level.getLayerNames();
+        int changed = 0;
+
+        for (int i = 0; i < names.length; i++) {
+
+            MapLayer mapLayer = map.getLayers().get(names[i]);
+
+            if (!(mapLayer instanceof TiledMapTileLayer))
+                continue;
+
+            TiledMapTileLayer layer = (TiledMapTileLayer) mapLayer;
+            boolean isWalls = names[i].equals(ChunkedLevel.WALLS);
+            int[] cells = level.getLayer(i);
+            int minX = width;
+            int minY = height;
+            int maxX = -1;
+            int maxY = -1;
+
+            for (int y = 0; y < height; y++) {
+
+                for (int x = 0; x < width; x++) {
+
+                    int value = cells[y * width + x];
+
+                    if (TileCodec.encode(layer.getCell(x, y)) == value)
+                        continue;
+
+                    layer.setCell(x, y, TileCodec.decode(value, sharedCells));
+                    changed++;
+
+                    if (isWalls)
+                        grid.setSolid(x, y, value != TileCodec.EMPTY);
+
+                    minX = Math.min(minX, x);
+                    minY = Math.min(minY, y);
+                    maxX = Math.max(maxX, x);
+                    maxY = Math.max(maxY, y);
+                }
+            }
+
+            if (listener != null && maxX != -1)
+                listener.onTilesChanged(layer, minX, minY, maxX - minX + 1, maxY - minY + 1);
+        }
+
+        return changed;
+    }
+}
@@ -0,0 +1,154 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Watches the directory of a level for changes to its .tmx or .level file and parses the changed file on its own
+ * thread, the render thread picks the parsed level up with {@link #poll} and applies it with {@link LevelReloader}.
+ * Editors save a file in several writes, or through a temporary file, so a file is only parsed once it has been
+ * quiet for a moment. A file that doesn't parse, like one saved halfway, is reported and the next save tried. */
+public class LevelWatcher implements Disposable {
+
+    // a save is over when the file hasn't changed for this long
+    private static final long QUIET_MILLIS = 100;
+    private final String tmxName;
+    private final String binaryName;
+    private final File directory;
+    private final WatchService watchService;
+    private final Thread thread;
+    private final AtomicReference<BinaryLevel> parsed = new AtomicReference<>();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private volatile long parseNanos;
+
+    /** @param directory the directory the level files are in, on disk */
+    public LevelWatcher(File directory, String levelName) {
+
+        this.directory = directory;
+
+        tmxName = levelName + ".tmx";
+        binaryName = levelName + BinaryLevel.EXTENSION;
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't watch " + directory, exception);
+        }
+
+        thread = new Thread(this::watch, "level-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+
+        try {
+            while (true) {
+
+                String changed = findChange(watchService.take());
+
+                // take the events that follow until the file is left alone
+                WatchKey key;
+
+                while ((key = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+
+                    String next = findChange(key);
+
+                    if (next != null)
+                        changed = next;
+                }
+
+                if (changed != null)
+                    parse(new File(directory, changed));
+            }
+        }
+        catch (InterruptedException | ClosedWatchServiceException exception) {
+            // disposed
+        }
+    }
+
+    /** The level file among the events of the key, null if they are about other files. */
+    private String findChange(WatchKey key) {
+
+        String changed = null;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+
+            if (!(event.context() instanceof Path))
+                continue;
+
+            String name = event.context().toString();
+
+            if (name.equals(tmxName) || name.equals(binaryName))
+                changed = name;
+        }
+
+        key.reset();
+
+        return changed;
+    }
+
+    private void parse(File file) {
+
+        long start = System.nanoTime();
+
+        try {
+            BinaryLevel level = file.getName().equals(tmxName) ? LevelConverter.read(file)
+                : BinaryLevel.load(new FileHandle(file));
+
+            parseNanos = System.nanoTime() - start;
+            parsed.set(level);
+        }
+        catch (RuntimeException exception) {
+            failure.set(exception);
+        }
+
+        // a window that only draws on changes has to draw the reloaded level
+        if (Gdx.graphics != null)
+            Gdx.graphics.requestRendering();
+    }
+
+    /** The level parsed since the last call, only the newest when several were, or null. Reports a file that
+     * failed to parse since. */
+    public BinaryLevel poll() {
+
+        RuntimeException exception = failure.getAndSet(null);
+
+        if (exception != null)
+            Gdx.app.error("Reload", "Couldn't parse the changed level", exception);
+
+        return parsed.getAndSet(null);
+    }
+
+    /** How long the last level took to parse, in nanoseconds. */
+    public long getParseNanos() {return parseNanos;}
+
+    @Override
+    public void dispose() {
+
+        thread.interrupt();
+
+        try {
+            watchService.close();
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't stop watching " + directory, exception);
+        }
+    }
+}
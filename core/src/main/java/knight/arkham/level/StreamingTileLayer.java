@@ -0,0 +1,67 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+
+/** A tile layer as wide as the whole level that only holds cells for the chunks that are resident, the rest reads
+ * as empty. It keeps the TiledMapTileLayer API, so the map renderer and debug renderer work on it unchanged while
+ * its memory is bounded by the number of resident chunks instead of the level width. */
+public class StreamingTileLayer extends TiledMapTileLayer {
+
+    private final int width;
+    private final int height;
+    private final int chunkWidth;
+    private final Cell[][] chunks;
+
+    public StreamingTileLayer(int width, int height, int tileWidth, int tileHeight, int chunkWidth) {
+
+        // the parent only gets a single cell, every cell lives in the chunks
+        super(1, 1, tileWidth, tileHeight);
+
+        this.width = width;
+        this.height = height;
+        this.chunkWidth = chunkWidth;
+        chunks = new Cell[(width + chunkWidth - 1) / chunkWidth][];
+    }
+
+    @Override
+    public int getWidth() {return width;}
+
+    @Override
+    public int getHeight() {return height;}
+
+    public int getChunkWidth() {return chunkWidth;}
+
+    public int getChunkCount() {return chunks.length;}
+
+    @Override
+    public Cell getCell(int x, int y) {
+
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return null;
+
+        Cell[] chunk = chunks[x / chunkWidth];
+
+        if (chunk == null)
+            return null;
+
+        return chunk[y * chunkWidth + x % chunkWidth];
+    }
+
+    /** Cells set on a chunk that is not resident are dropped, the collision grid keeps the destroyed blocks. */
+    @Override
+    public void setCell(int x, int y, Cell cell) {
+
+        if (x < 0 || y < 0 || x >= width || y >= height)
+            return;
+
+        Cell[] chunk = chunks[x / chunkWidth];
+
+        if (chunk != null)
+            chunk[y * chunkWidth + x % chunkWidth] = cell;
+    }
+
+    public boolean isResident(int chunk) {return chunks[chunk] != null;}
+
+    /** @param cells the cells of the chunk, row by row, {@code chunkWidth * height} of them, null to evict it */
+    public void setChunk(int chunk, Cell[] cells) {chunks[chunk] = cells;}
+}
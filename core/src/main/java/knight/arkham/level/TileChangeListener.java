@@ -0,0 +1,10 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+
+/** Told when cells of a tile layer change outside the map loaders, like destroyed blocks or streamed chunks, so
+ * anything caching the tiles can refresh that region of that layer. */
+public interface TileChangeListener {
+
+    void onTilesChanged(TiledMapTileLayer layer, int x, int y, int width, int height);
+}
@@ -0,0 +1,22 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.Array;
+
+/** Passes tile changes on to several listeners, like the map renderer and a path finder, the world, the chunk
+ * streamer and the level reloader each take a single one. */
+public class TileChangeMultiplexer implements TileChangeListener {
+
+    private final Array<TileChangeListener> listeners = new Array<>(false, 4, TileChangeListener.class);
+
+    public void addListener(TileChangeListener listener) {listeners.add(listener);}
+
+    public void removeListener(TileChangeListener listener) {listeners.removeValue(listener, true);}
+
+    @Override
+    public void onTilesChanged(TiledMapTileLayer layer, int x, int y, int width, int height) {
+
+        for (int i = 0; i < listeners.size; i++)
+            listeners.items[i].onTilesChanged(layer, x, y, width, height);
+    }
+}
@@ -0,0 +1,83 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.utils.IntMap;
+
+/** Packs a cell into an int for the level files, the tile id in the low bits plus the flip and rotation flags.
+ * 0 is an empty cell, as in Tiled where the first tile id is 1. */
+public final class TileCodec {
+
+    public static final int EMPTY = 0;
+    private static final int FLIP_HORIZONTALLY = 0x80000000;
+    private static final int FLIP_VERTICALLY = 0x40000000;
+    private static final int ROTATION_SHIFT = 28;
+    private static final int ID_MASK = 0x0FFFFFFF;
+
+    private TileCodec() {}
+
+    public static int encode(Cell cell) {
+
+        if (cell == null || cell.getTile() == null)
+            return EMPTY;
+
+        return encode(cell.getTile().getId(), cell.getFlipHorizontally(), cell.getFlipVertically(), cell.getRotation());
+    }
+
+    /** @param rotation one of the Cell.ROTATE_* constants */
+    public static int encode(int tileId, boolean flipHorizontally, boolean flipVertically, int rotation) {
+
+        int value = tileId & ID_MASK;
+
+        if (flipHorizontally)
+            value |= FLIP_HORIZONTALLY;
+
+        if (flipVertically)
+            value |= FLIP_VERTICALLY;
+
+        return value | (rotation & 3) << ROTATION_SHIFT;
+    }
+
+    public static int getTileId(int value) {return value & ID_MASK;}
+
+    /** One shared cell per tile of the set, so plain tiles cost a reference instead of a new Cell each. */
+    public static IntMap<Cell> createSharedCells(TiledMapTileSet tileSet) {
+
+        IntMap<Cell> cells = new IntMap<>();
+
+        for (TiledMapTile tile : tileSet) {
+
+            Cell cell = new Cell();
+            cell.setTile(tile);
+            cells.put(tile.getId(), cell);
+        }
+
+        return cells;
+    }
+
+    /** Returns the shared cell for plain tiles and a new cell for flipped or rotated ones, a tile missing from the
+     * set gives a cell without tile so it still counts as filled. */
+    public static Cell decode(int value, IntMap<Cell> sharedCells) {
+
+        if (value == EMPTY)
+            return null;
+
+        int id = getTileId(value);
+        Cell shared = sharedCells.get(id);
+
+        if (value == id && shared != null)
+            return shared;
+
+        Cell cell = new Cell();
+
+        if (shared != null)
+            cell.setTile(shared.getTile());
+
+        cell.setFlipHorizontally((value & FLIP_HORIZONTALLY) != 0);
+        cell.setFlipVertically((value & FLIP_VERTICALLY) != 0);
+        cell.setRotation(value >>> ROTATION_SHIFT & 3);
+
+        return cell;
+    }
+}
@@ -0,0 +1,54 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+
+/** Builds tile sets for levels that are not loaded through TmxMapLoader. */
+public final class TileSets {
+
+    private TileSets() {}
+
+    /** Splits the texture into tiles numbered row by row starting at firstId, the same ids Tiled gives them. */
+    public static TiledMapTileSet split(Texture texture, int tileWidth, int tileHeight, int firstId) {
+        return split(new TextureRegion(texture), tileWidth, tileHeight, firstId);
+    }
+
+    /** Same as {@link #split(Texture, int, int, int)} for a tileset image packed in an atlas. */
+    public static TiledMapTileSet split(TextureRegion image, int tileWidth, int tileHeight, int firstId) {
+
+        TiledMapTileSet tileSet = new TiledMapTileSet();
+        TextureRegion[][] regions = image.split(tileWidth, tileHeight);
+
+        int id = firstId;
+
+        for (TextureRegion[] row : regions) {
+
+            for (TextureRegion region : row) {
+
+                StaticTiledMapTile tile = new StaticTiledMapTile(region);
+                tile.setId(id);
+                tileSet.putTile(id++, tile);
+            }
+        }
+
+        return tileSet;
+    }
+
+    /** Points the static tiles of a tile set loaded from its own image at the copy of that image packed in an atlas. */
+    public static void moveToAtlas(TiledMapTileSet tileSet, TextureRegion image) {
+
+        for (TiledMapTile tile : tileSet) {
+
+            if (!(tile instanceof StaticTiledMapTile))
+                continue;
+
+            TextureRegion region = tile.getTextureRegion();
+
+            tile.setTextureRegion(new TextureRegion(image, region.getRegionX(), region.getRegionY(),
+                region.getRegionWidth(), region.getRegionHeight()));
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package knight.arkham.navigation;
+
+import com.badlogic.gdx.utils.IntArray;
+import knight.arkham.Koala;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.Simulation;
+
+/** Where an agent with the koala's physics can stand on the walls and how it gets from one place to another. A
+ * node is an empty cell with a solid one under it and room for the agent above, identified by its packed index
+ * {@code y * width + x}. Edges walk to a neighbouring node, or jump or walk off a ledge and land on another one.
+ *
+ * Jumps and falls are found by playing the moves against the collision grid, with the same gravity, jump impulse,
+ * max speed and damping as {@link GameWorld#step}, so every edge is one the koala can actually take: jump or not,
+ * hold left or right for a number of ticks, then let go. An edge costs the ticks it takes.
+ *
+ * No move reaches further than {@link #MAX_REACH} columns, so when a block changes only the nodes within that many
+ * columns of it are built again, see {@link #patch}. */
+public class NavigationGraph {
+
+    /** Edge types, what the agent does to follow an edge. */
+    public static final int WALK = 0;
+    public static final int JUMP = 1;
+    public static final int FALL = 2;
+    public static final int MAX_REACH = 12;
+    // the agent is wider than a tile, a move that stays within reach can still overlap the next column
+    public static final int PATCH_RADIUS = MAX_REACH + 2;
+    /** Ticks to walk across one tile at full speed, no move covers a column faster. */
+    public static final int TICKS_PER_TILE = (int) Math.ceil(1 / (Koala.MAX_VELOCITY * Simulation.STEP));
+    // a move that hasn't landed by then is dropped, like falling out of the level
+    private static final int MAX_TICKS = 180;
+    // ticks the direction is held in the air, the last one means all the way down
+    private static final int[] HOLD_TICKS = {2, 4, 6, 8, 12, 16, 24, MAX_TICKS};
+    private static final int[] DIRECTIONS = {-1, 1};
+    private final CollisionGrid grid;
+    private final int width;
+    private final int height;
+    private final float agentWidth;
+    private final float agentHeight;
+    private final int headroom;
+    // target, cost and action of every edge of a node, null for cells that aren't nodes
+    private final IntArray[] edges;
+    // the walls the graph was built from, in the words of the grid, to tell whether a change reached the grid
+    private final long[] builtWords;
+    private int nodeCount;
+    private int edgeCount;
+
+    /** @param grid the collision grid of the walls layer, read again by {@link #patch} after it changes */
+    public NavigationGraph(CollisionGrid grid, float agentWidth, float agentHeight) {
+
+        this.grid = grid;
+        this.agentWidth = agentWidth;
+        this.agentHeight = agentHeight;
+
+        width = grid.getWidth();
+        height = grid.getHeight();
+        headroom = (int) Math.ceil(agentHeight);
+        edges = new IntArray[width * height];
+        builtWords = new long[grid.getWordsPerRow() * height];
+
+        takeColumns(0, width - 1);
+        build(0, width - 1);
+    }
+
+    /** Builds the nodes and their edges of the columns between the two, inclusive. Nodes have to be known before
+     * edges are, a walk edge needs the node next to it. */
+    private void build(int firstColumn, int lastColumn) {
+
+        for (int x = firstColumn; x <= lastColumn; x++) {
+
+            for (int y = 0; y < height; y++) {
+
+                int node = y * width + x;
+                IntArray nodeEdges = edges[node];
+
+                if (nodeEdges != null) {
+
+                    edgeCount -= nodeEdges.size / 3;
+                    nodeEdges.clear();
+                }
+
+                if (!isStandable(x, y)) {
+
+                    if (nodeEdges != null)
+                        nodeCount--;
+
+                    edges[node] = null;
+                }
+                else if (nodeEdges == null) {
+
+                    edges[node] = new IntArray(false, 24);
+                    nodeCount++;
+                }
+            }
+        }
+
+        for (int x = firstColumn; x <= lastColumn; x++) {
+
+            for (int y = 0; y < height; y++) {
+
+                if (edges[y * width + x] != null)
+                    buildEdges(x, y);
+            }
+        }
+    }
+
+    private boolean isStandable(int x, int y) {
+
+        if (y < 1 || grid.isSolid(x, y) || !grid.isSolid(x, y - 1))
+            return false;
+
+        for (int i = 1; i < headroom; i++) {
+
+            if (grid.isSolid(x, y + i))
+                return false;
+        }
+
+        return true;
+    }
+
+    private void buildEdges(int x, int y) {
+
+        for (int direction : DIRECTIONS) {
+
+            int neighbour = x + direction;
+
+            if (isNode(neighbour, y))
+                addEdge(x, y, y * width + neighbour, TICKS_PER_TILE, toAction(WALK, direction, 0));
+            // walking off the ledge
+            else if (neighbour >= 0 && neighbour < width) {
+
+                for (int holdTicks : HOLD_TICKS)
+                    simulate(x, y, false, direction, holdTicks);
+            }
+
+            for (int holdTicks : HOLD_TICKS)
+                simulate(x, y, true, direction, holdTicks);
+        }
+    }
+
+    /** Plays a move from standing in the middle of the node, and adds an edge to where it lands. */
+    private void simulate(int startX, int startY, boolean isJump, int direction, int holdTicks) {
+
+        float x = startX + 0.5f - agentWidth / 2;
+        float y = startY;
+        float velocityX = 0;
+        float velocityY = isJump ? Koala.JUMP_VELOCITY : 0;
+        boolean isAirborne = isJump;
+        int airTicks = 0;
+
+        for (int tick = 1; tick <= MAX_TICKS; tick++) {
+
+            if (isAirborne)
+                airTicks++;
+
+            if (!isAirborne || airTicks <= holdTicks)
+                velocityX = direction * Koala.MAX_VELOCITY;
+
+            if (Math.abs(velocityX) < 1)
+                velocityX = 0;
+
+            float dx = velocityX * Simulation.STEP;
+            float dy = (velocityY + GameWorld.GRAVITY) * Simulation.STEP;
+
+            if (grid.sweepX(x, y, agentWidth, agentHeight, dx)) {
+
+                // a walk off the ledge that runs into a wall is no move at all
+                if (!isAirborne)
+                    return;
+
+                dx = 0;
+            }
+
+            int tile = grid.sweepY(x, y, agentWidth, agentHeight, dy);
+
+            if (tile != -1) {
+
+                int tileY = grid.getTileY(tile);
+
+                // bumping the head, the koala would break the block, the move is taken as if it doesn't
+                if (dy > 0)
+                    y = tileY - agentHeight;
+                else {
+
+                    y = tileY + 1;
+
+                    if (isAirborne) {
+
+                        land(startX, startY, findNode(x + dx, tileY + 1), tick, isJump, direction, holdTicks);
+                        return;
+                    }
+
+                    // still walking to the ledge, a floor that goes on is a walk, not a fall
+                    if (tick > TICKS_PER_TILE * 2)
+                        return;
+                }
+
+                dy = 0;
+            }
+            else
+                isAirborne = true;
+
+            x += dx;
+            y += dy;
+            velocityX = dx / Simulation.STEP * GameWorld.DAMPING;
+            velocityY = dy / Simulation.STEP;
+
+            if (y < 0 || Math.abs(x - startX) > MAX_REACH)
+                return;
+        }
+    }
+
+    private void land(int startX, int startY, int target, int ticks, boolean isJump, int direction, int holdTicks) {
+
+        if (target == -1 || target == startY * width + startX || Math.abs(target % width - startX) > MAX_REACH)
+            return;
+
+        addEdge(startX, startY, target, ticks, toAction(isJump ? JUMP : FALL, direction, holdTicks));
+    }
+
+    /** Keeps the cheapest move to every target. */
+    private void addEdge(int x, int y, int target, int cost, int action) {
+
+        IntArray nodeEdges = edges[y * width + x];
+
+        for (int i = 0; i < nodeEdges.size; i += 3) {
+
+            if (nodeEdges.items[i] != target)
+                continue;
+
+            if (cost < nodeEdges.items[i + 1]) {
+
+                nodeEdges.items[i + 1] = cost;
+                nodeEdges.items[i + 2] = action;
+            }
+
+            return;
+        }
+
+        nodeEdges.add(target, cost, action);
+        edgeCount++;
+    }
+
+    /** Builds again the columns whose moves can pass the column of a changed block, call it after a block of the
+     * grid was destroyed or put back. The columns within {@link #PATCH_RADIUS} of it are built again. */
+    public void patch(int column) {patch(column, column);}
+
+    /** Like {@link #patch(int)} for blocks changed anywhere in a run of columns. */
+    public void patch(int firstColumn, int lastColumn) {
+
+        takeColumns(firstColumn, lastColumn);
+        build(Math.max(0, firstColumn - PATCH_RADIUS), Math.min(width - 1, lastColumn + PATCH_RADIUS));
+    }
+
+    /** Patches the columns only if their blocks in the grid changed since the graph last read them, for callers
+     * told about changes that may not have reached the grid, like a chunk streamed in again. Returns whether it
+     * patched. */
+    public boolean patchIfChanged(int firstColumn, int lastColumn) {
+
+        if (!takeColumns(firstColumn, lastColumn))
+            return false;
+
+        build(Math.max(0, firstColumn - PATCH_RADIUS), Math.min(width - 1, lastColumn + PATCH_RADIUS));
+
+        return true;
+    }
+
+    /** Copies the blocks of the columns from the grid, returns whether any differed from the ones the graph had. */
+    private boolean takeColumns(int firstColumn, int lastColumn) {
+
+        int first = Math.max(0, firstColumn);
+        int last = Math.min(width - 1, lastColumn);
+
+        if (first > last)
+            return false;
+
+        int wordsPerRow = grid.getWordsPerRow();
+        boolean isChanged = false;
+
+        for (int word = first >>> 6; word <= last >>> 6; word++) {
+
+            // the bits of the columns that fall in this word
+            long mask = -1L;
+
+            if (word == first >>> 6)
+                mask &= -1L << (first & 63);
+
+            if (word == last >>> 6)
+                mask &= -1L >>> (63 - (last & 63));
+
+            for (int y = 0; y < height; y++) {
+
+                int index = y * wordsPerRow + word;
+                long difference = (grid.getWord(index) ^ builtWords[index]) & mask;
+
+                if (difference != 0) {
+
+                    builtWords[index] ^= difference;
+                    isChanged = true;
+                }
+            }
+        }
+
+        return isChanged;
+    }
+
+    public boolean isNode(int x, int y) {return x >= 0 && y >= 0 && x < width && y < height && edges[y * width + x] != null;}
+
+    public boolean isNode(int node) {return node >= 0 && node < edges.length && edges[node] != null;}
+
+    /** The node an agent at that position stands on, the one under its middle when it stands on two, -1 if it
+     * doesn't stand on one. */
+    public int findNode(float x, float y) {
+
+        int row = Math.round(y);
+        int middle = (int)(x + agentWidth / 2);
+
+        if (isNode(middle, row))
+            return row * width + middle;
+
+        for (int column = (int) x; column <= (int)(x + agentWidth); column++) {
+
+            if (isNode(column, row))
+                return row * width + column;
+        }
+
+        return -1;
+    }
+
+    public int getWidth() {return width;}
+
+    public int getHeight() {return height;}
+
+    public int getNodeCount() {return nodeCount;}
+
+    public int getEdgeCount() {return edgeCount;}
+
+    public int getEdgeCount(int node) {return edges[node].size / 3;}
+
+    public int getEdgeTarget(int node, int edge) {return edges[node].items[edge * 3];}
+
+    public int getEdgeCost(int node, int edge) {return edges[node].items[edge * 3 + 1];}
+
+    /** What to do to follow the edge, see {@link #getType}, {@link #getDirection} and {@link #getHoldTicks}. */
+    public int getEdgeAction(int node, int edge) {return edges[node].items[edge * 3 + 2];}
+
+    /** The edge from one node to the other, -1 if there is none. */
+    public int findEdge(int node, int target) {
+
+        IntArray nodeEdges = edges[node];
+
+        for (int i = 0; i < nodeEdges.size; i += 3) {
+
+            if (nodeEdges.items[i] == target)
+                return i / 3;
+        }
+
+        return -1;
+    }
+
+    private static int toAction(int type, int direction, int holdTicks) {return type | (direction + 1) << 2 | holdTicks << 4;}
+
+    /** {@link #WALK}, {@link #JUMP} or {@link #FALL}. */
+    public static int getType(int action) {return action & 3;}
+
+    /** -1 for left, 1 for right. */
+    public static int getDirection(int action) {return (action >>> 2 & 3) - 1;}
+
+    /** Ticks the direction is held once in the air. */
+    public static int getHoldTicks(int action) {return action >>> 4;}
+}
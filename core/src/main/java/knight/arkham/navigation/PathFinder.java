@@ -0,0 +1,331 @@
+package knight.arkham.navigation;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongMap;
+import knight.arkham.level.ChunkedLevel;
+import knight.arkham.level.TileChangeListener;
+
+/** A* over a {@link NavigationGraph} with an LRU cache of the paths found, so agents chasing the same target share
+ * the search. The heuristic is the columns to go at full walking speed, no edge covers them faster, so paths are
+ * the cheapest in ticks. The search state is kept between queries and indexed by node, only the path returned by a
+ * cache miss is allocated.
+ *
+ * To follow the level as it changes, add it to the tile change listeners of the world, and of a chunk streamer and
+ * the reloads if there are any, next to the renderer in a {@link knight.arkham.level.TileChangeMultiplexer}. A block
+ * broken, put back by a rewind or a rollback, or changed by a reload then patches the graph and drops the cached
+ * paths that cross the patched columns, along with the cached misses, a path may exist now. Cached paths elsewhere
+ * are kept, they still work, though a shorter one may have opened up. Changes that didn't reach the collision grid,
+ * like a chunk streamed in again, patch nothing. */
+public class PathFinder implements TileChangeListener {
+
+    private static final int[] NO_PATH = new int[0];
+    private final NavigationGraph graph;
+    private final LongMap<CachedPath> cache;
+    // the least recently used path is the head of the list, the most recently used its tail
+    private CachedPath head;
+    private CachedPath tail;
+    private final CachedPath[] free;
+    private int freeCount;
+    // search state per node, a node's state is only valid when its stamp is the current search
+    private final int[] stamps;
+    private final int[] costs;
+    private final int[] parents;
+    private final boolean[] closed;
+    private int search;
+    // binary heap of nodes by estimated total cost
+    private final IntArray heapNodes = new IntArray(256);
+    private final IntArray heapCosts = new IntArray(256);
+    private final IntArray reversed = new IntArray(64);
+    private long cacheHits;
+    private long cacheMisses;
+
+    public PathFinder(NavigationGraph graph, int cacheSize) {
+
+        this.graph = graph;
+
+        cache = new LongMap<>(cacheSize * 2);
+        free = new CachedPath[cacheSize];
+
+        for (int i = 0; i < cacheSize; i++)
+            free[freeCount++] = new CachedPath();
+
+        int nodes = graph.getWidth() * graph.getHeight();
+
+        stamps = new int[nodes];
+        costs = new int[nodes];
+        parents = new int[nodes];
+        closed = new boolean[nodes];
+    }
+
+    public NavigationGraph getGraph() {return graph;}
+
+    /** The nodes from start to goal, both included, or an empty array when the goal can't be reached. The array is
+     * shared with the cache and with other agents, it must not be changed. */
+    public int[] findPath(int start, int goal) {
+
+        // what NavigationGraph.findNode gives for a position off the graph
+        if (start < 0 || goal < 0)
+            return NO_PATH;
+
+        long key = (long) start << 32 | goal;
+        CachedPath cached = cache.get(key);
+
+        if (cached != null) {
+
+            cacheHits++;
+            moveToTail(cached);
+
+            return cached.nodes;
+        }
+
+        cacheMisses++;
+
+        int[] nodes = search(start, goal);
+
+        if (freeCount == 0)
+            evict(head);
+
+        CachedPath path = free[--freeCount];
+
+        path.key = key;
+        path.nodes = nodes;
+        path.firstColumn = Integer.MAX_VALUE;
+        path.lastColumn = Integer.MIN_VALUE;
+
+        for (int node : nodes) {
+
+            int column = node % graph.getWidth();
+
+            path.firstColumn = Math.min(path.firstColumn, column);
+            path.lastColumn = Math.max(path.lastColumn, column);
+        }
+
+        cache.put(key, path);
+        append(path);
+
+        return nodes;
+    }
+
+    private int[] search(int start, int goal) {
+
+        if (!graph.isNode(start) || !graph.isNode(goal))
+            return NO_PATH;
+
+        search++;
+        heapNodes.clear();
+        heapCosts.clear();
+
+        int goalColumn = goal % graph.getWidth();
+
+        visit(start, 0, -1);
+        push(start, estimate(start, goalColumn));
+
+        while (heapNodes.size > 0) {
+
+            int node = pop();
+
+            if (closed[node])
+                continue;
+
+            if (node == goal)
+                return buildPath(goal);
+
+            closed[node] = true;
+
+            for (int edge = 0; edge < graph.getEdgeCount(node); edge++) {
+
+                int target = graph.getEdgeTarget(node, edge);
+                int cost = costs[node] + graph.getEdgeCost(node, edge);
+
+                if (stamps[target] == search && (closed[target] || costs[target] <= cost))
+                    continue;
+
+                visit(target, cost, node);
+                push(target, cost + estimate(target, goalColumn));
+            }
+        }
+
+        return NO_PATH;
+    }
+
+    private void visit(int node, int cost, int parent) {
+
+        if (stamps[node] != search) {
+
+            stamps[node] = search;
+            closed[node] = false;
+        }
+
+        costs[node] = cost;
+        parents[node] = parent;
+    }
+
+    // a move starts in the middle of a column and may land at the near edge of the last one, so a column less
+    private int estimate(int node, int goalColumn) {
+
+        return Math.max(0, Math.abs(node % graph.getWidth() - goalColumn) - 1) * NavigationGraph.TICKS_PER_TILE;
+    }
+
+    private int[] buildPath(int goal) {
+
+        reversed.clear();
+
+        for (int node = goal; node != -1; node = parents[node])
+            reversed.add(node);
+
+        int[] nodes = new int[reversed.size];
+
+        for (int i = 0; i < nodes.length; i++)
+            nodes[i] = reversed.get(reversed.size - 1 - i);
+
+        return nodes;
+    }
+
+    private void push(int node, int cost) {
+
+        heapNodes.add(node);
+        heapCosts.add(cost);
+
+        int index = heapNodes.size - 1;
+
+        while (index > 0) {
+
+            int parent = (index - 1) / 2;
+
+            if (heapCosts.items[parent] <= cost)
+                break;
+
+            heapNodes.items[index] = heapNodes.items[parent];
+            heapCosts.items[index] = heapCosts.items[parent];
+            index = parent;
+        }
+
+        heapNodes.items[index] = node;
+        heapCosts.items[index] = cost;
+    }
+
+    private int pop() {
+
+        int top = heapNodes.items[0];
+        int node = heapNodes.pop();
+        int cost = heapCosts.pop();
+        int size = heapNodes.size;
+
+        if (size == 0)
+            return top;
+
+        int index = 0;
+
+        while (true) {
+
+            int child = index * 2 + 1;
+
+            if (child >= size)
+                break;
+
+            if (child + 1 < size && heapCosts.items[child + 1] < heapCosts.items[child])
+                child++;
+
+            if (cost <= heapCosts.items[child])
+                break;
+
+            heapNodes.items[index] = heapNodes.items[child];
+            heapCosts.items[index] = heapCosts.items[child];
+            index = child;
+        }
+
+        heapNodes.items[index] = node;
+        heapCosts.items[index] = cost;
+
+        return top;
+    }
+
+    /** Worlds nobody draws have no walls layer and tell about their blocks with a null one. */
+    @Override
+    public void onTilesChanged(TiledMapTileLayer layer, int x, int y, int width, int height) {
+
+        // only the walls are in the collision grid the graph is built from
+        if (layer != null && !ChunkedLevel.WALLS.equals(layer.getName()))
+            return;
+
+        if (graph.patchIfChanged(x, x + width - 1))
+            invalidate(x - NavigationGraph.PATCH_RADIUS, x + width - 1 + NavigationGraph.PATCH_RADIUS);
+    }
+
+    /** Drops the cached paths that cross the columns and every cached miss. */
+    public void invalidate(int firstColumn, int lastColumn) {
+
+        CachedPath path = head;
+
+        while (path != null) {
+
+            CachedPath next = path.next;
+
+            if (path.nodes.length == 0 || path.firstColumn <= lastColumn && path.lastColumn >= firstColumn)
+                evict(path);
+
+            path = next;
+        }
+    }
+
+    private void evict(CachedPath path) {
+
+        cache.remove(path.key);
+        unlink(path);
+
+        path.nodes = null;
+        free[freeCount++] = path;
+    }
+
+    private void append(CachedPath path) {
+
+        path.previous = tail;
+        path.next = null;
+
+        if (tail != null)
+            tail.next = path;
+        else
+            head = path;
+
+        tail = path;
+    }
+
+    private void unlink(CachedPath path) {
+
+        if (path.previous != null)
+            path.previous.next = path.next;
+        else
+            head = path.next;
+
+        if (path.next != null)
+            path.next.previous = path.previous;
+        else
+            tail = path.previous;
+    }
+
+    private void moveToTail(CachedPath path) {
+
+        if (path == tail)
+            return;
+
+        unlink(path);
+        append(path);
+    }
+
+    public int getCacheSize() {return cache.size;}
+
+    public long getCacheHits() {return cacheHits;}
+
+    public long getCacheMisses() {return cacheMisses;}
+
+    private static class CachedPath {
+
+        long key;
+        int[] nodes;
+        int firstColumn;
+        int lastColumn;
+        CachedPath previous;
+        CachedPath next;
+    }
+}
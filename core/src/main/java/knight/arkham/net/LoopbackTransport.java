@@ -0,0 +1,77 @@
+package knight.arkham.net;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/** In-process transport, the two ends of a pair share a queue in each direction. A latency can be added to test
+ * prediction and rollback without a network. Messages are delivered in order and never dropped. */
+public class LoopbackTransport implements Transport {
+
+    private final Queue<Message> incoming;
+    private final Queue<Message> outgoing;
+    private final long latencyNanos;
+
+    private LoopbackTransport(Queue<Message> incoming, Queue<Message> outgoing, long latencyNanos) {
+
+        this.incoming = incoming;
+        this.outgoing = outgoing;
+        this.latencyNanos = latencyNanos;
+    }
+
+    /** Two connected ends, a message sent on one is received on the other after the one way latency. */
+    public static LoopbackTransport[] createPair(long latencyMillis) {
+
+        Queue<Message> first = new ConcurrentLinkedQueue<>();
+        Queue<Message> second = new ConcurrentLinkedQueue<>();
+        long latencyNanos = latencyMillis * 1000000;
+
+        return new LoopbackTransport[] {
+            new LoopbackTransport(first, second, latencyNanos),
+            new LoopbackTransport(second, first, latencyNanos)};
+    }
+
+    @Override
+    public void send(ByteBuffer message) {
+
+        byte[] bytes = new byte[message.remaining()];
+        message.get(bytes);
+
+        outgoing.add(new Message(System.nanoTime() + latencyNanos, bytes));
+    }
+
+    @Override
+    public boolean receive(ByteBuffer message) {
+
+        message.clear();
+
+        Message next = incoming.peek();
+
+        if (next == null || next.deliveryTime - System.nanoTime() > 0) {
+
+            message.limit(0);
+            return false;
+        }
+
+        incoming.poll();
+        message.put(next.bytes);
+        message.flip();
+
+        return true;
+    }
+
+    @Override
+    public void close() {}
+
+    private static final class Message {
+
+        final long deliveryTime;
+        final byte[] bytes;
+
+        Message(long deliveryTime, byte[] bytes) {
+
+            this.deliveryTime = deliveryTime;
+            this.bytes = bytes;
+        }
+    }
+}
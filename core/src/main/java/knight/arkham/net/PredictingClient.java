@@ -0,0 +1,204 @@
+package knight.arkham.net;
+
+import com.badlogic.gdx.utils.IntArray;
+import knight.arkham.events.EventBus;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.InputState;
+import knight.arkham.simulation.Simulation;
+import knight.arkham.simulation.StateChecksum;
+import knight.arkham.simulation.TickListener;
+import knight.arkham.simulation.WorldSnapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** Runs the local simulation ahead of the server with the player's own input, and sends that input every tick.
+ * States coming back from the server are compared with what was predicted for their tick, on a mismatch the world
+ * is reset to the server state and the ticks since are simulated again with the recorded input. Hooked into the
+ * {@link Simulation} as its tick listener, call {@link #receive()} once per frame before advancing it. */
+public class PredictingClient implements TickListener {
+
+    private final Simulation simulation;
+    private final Transport transport;
+    private final ByteBuffer message = ByteBuffer.allocate(Protocol.MAX_MESSAGE_BYTES);
+    private final ByteBuffer state = ByteBuffer.allocate(Protocol.MAX_MESSAGE_BYTES);
+    private final int[] inputs = new int[Protocol.HISTORY_TICKS];
+    private final int[] predictedChecksums = new int[Protocol.HISTORY_TICKS];
+    private final long[] predictedTicks = new long[Protocol.HISTORY_TICKS];
+    // the blocks destroyed on the server in order, the server only sends the ones after these
+    private final IntArray serverBlocks = new IntArray();
+    private boolean isResimulating;
+    private long confirmedTick = -1;
+    private int rollbacks;
+    private int droppedMessages;
+    private long resimulatedTicks;
+
+    public PredictingClient(Simulation simulation, Transport transport) {
+
+        this.simulation = simulation;
+        this.transport = transport;
+
+        Arrays.fill(predictedTicks, -1);
+        simulation.setTickListener(this);
+    }
+
+    /** The newest tick the server confirmed, -1 before the first state arrives. */
+    public long getConfirmedTick() {return confirmedTick;}
+
+    public int getRollbacks() {return rollbacks;}
+
+    /** Messages that were short, malformed or not states, and were ignored. */
+    public int getDroppedMessages() {return droppedMessages;}
+
+    public long getResimulatedTicks() {return resimulatedTicks;}
+
+    @Override
+    public void beforeTick(long tick, InputState input) {
+
+        int slot = (int) (tick % Protocol.HISTORY_TICKS);
+
+        if (isResimulating) {
+
+            input.setButtons(inputs[slot]);
+            return;
+        }
+
+        inputs[slot] = input.getButtons();
+        sendInputs(tick);
+    }
+
+    @Override
+    public void afterTick(long tick, InputState input, GameWorld world) {
+
+        int slot = (int) ((tick + 1) % Protocol.HISTORY_TICKS);
+
+        predictedChecksums[slot] = StateChecksum.compute(world);
+        predictedTicks[slot] = tick + 1;
+    }
+
+    private void sendInputs(long tick) {
+
+        long firstTick = Math.max(0, tick - Protocol.INPUT_REDUNDANCY + 1);
+
+        message.clear();
+        message.put(Protocol.INPUT);
+        message.putLong(firstTick);
+        message.putInt(serverBlocks.size);
+        message.put((byte) (tick - firstTick + 1));
+
+        for (long i = firstTick; i <= tick; i++)
+            message.put((byte) inputs[(int) (i % Protocol.HISTORY_TICKS)]);
+
+        message.flip();
+        transport.send(message);
+    }
+
+    /** Reads the states the server sent and rolls back if the newest one doesn't match the prediction. */
+    public void receive() {
+
+        long stateTick = -1;
+
+        // only the newest state matters, older ones are already out of date
+        while (transport.receive(message)) {
+
+            if (message.remaining() < Protocol.STATE_HEADER_BYTES || message.get() != Protocol.STATE) {
+
+                droppedMessages++;
+                continue;
+            }
+
+            long tick = message.getLong();
+
+            if (tick > stateTick) {
+
+                stateTick = tick;
+                message.position(0);
+                state.clear();
+                state.put(message);
+                state.flip();
+            }
+        }
+
+        if (stateTick <= confirmedTick)
+            return;
+
+        if (!isValidState()) {
+
+            droppedMessages++;
+            return;
+        }
+
+        state.position(1 + 8);
+
+        int checksum = state.getInt();
+
+        // the state can't be checked until the client has all its blocks, the next states bring the rest
+        if (!readBlocks())
+            return;
+
+        confirmedTick = stateTick;
+        long tick = simulation.getTick();
+        int slot = (int) (stateTick % Protocol.HISTORY_TICKS);
+
+        if (stateTick <= tick && predictedTicks[slot] == stateTick && predictedChecksums[slot] == checksum)
+            return;
+
+        simulation.resetTo(stateTick, state, serverBlocks);
+
+        // the server is ahead, or too far behind to replay the input, take its state as it is
+        if (stateTick >= tick || tick - stateTick >= Protocol.HISTORY_TICKS)
+            return;
+
+        rollbacks++;
+        resimulatedTicks += tick - stateTick;
+
+        EventBus events = simulation.getWorld().getEvents();
+
+        isResimulating = true;
+        events.setResimulating(true);
+        simulation.runTicks((int) (tick - stateTick));
+        events.setResimulating(false);
+        isResimulating = false;
+    }
+
+    /** Whether the fields of the state add up: its blocks follow on from the ones the client has, as the server
+     * only sends from a count the client acknowledged and neither side ever loses blocks, and the snapshot is whole. */
+    private boolean isValidState() {
+
+        int total = state.getInt(1 + 8 + 4);
+        int first = state.getInt(1 + 8 + 4 + 4);
+        int count = state.getShort(1 + 8 + 4 + 4 + 4);
+
+        if (count < 0 || first < 0 || first > serverBlocks.size || total < serverBlocks.size || first + count > total)
+            return false;
+
+        if (state.remaining() < Protocol.STATE_HEADER_BYTES + count * 4)
+            return false;
+
+        state.position(Protocol.STATE_HEADER_BYTES + count * 4);
+
+        return WorldSnapshot.isComplete(state);
+    }
+
+    /** Adds the blocks of the state to the ones the client has, returns whether it has all of them now. */
+    private boolean readBlocks() {
+
+        int total = state.getInt();
+        int first = state.getInt();
+        int count = state.getShort();
+        // a state sent before the last acknowledgement arrived repeats blocks the client has
+        int known = serverBlocks.size - first;
+
+        for (int i = 0; i < count; i++) {
+
+            int block = state.getInt();
+
+            if (i >= known)
+                serverBlocks.add(block);
+        }
+
+        return serverBlocks.size == total;
+    }
+
+    public void close() {transport.close();}
+}
@@ -0,0 +1,32 @@
+package knight.arkham.net;
+
+/** Messages between {@link PredictingClient} and {@link ServerSession}, all numbers big endian and every message at
+ * most {@link #MAX_MESSAGE_BYTES}.
+ * <ul>
+ * <li>{@link #INPUT}, client to server: the first tick as a long, the number of the server's destroyed blocks the
+ * client has as an int, a count and the buttons of that many ticks as bytes. The last {@link #INPUT_REDUNDANCY} ticks
+ * are sent every time, so a lost message costs nothing.</li>
+ * <li>{@link #STATE}, server to client: the tick the state is at as a long, its
+ * {@link knight.arkham.simulation.StateChecksum}, the number of blocks destroyed on the server, the index of the first
+ * block sent and a count of the blocks sent, then those blocks as packed tile indices and the
+ * {@link knight.arkham.simulation.WorldSnapshot}. The server only sends the blocks after the ones the client said it
+ * has, and no more than fit, the client catches up over the next states when many broke at once.</li>
+ * </ul>
+ * Anyone can send datagrams to a port, so both sides drop messages that are short or whose fields don't add up
+ * instead of failing on them. */
+public final class Protocol {
+
+    public static final byte INPUT = 1;
+    public static final byte STATE = 2;
+    public static final int INPUT_REDUNDANCY = 8;
+    /** Ticks of input and predicted state a client keeps, a rollback can't go further back than this. */
+    public static final int HISTORY_TICKS = 256;
+    /** Fits in one datagram on any network, IPv6 guarantees 1280 bytes with the headers. */
+    public static final int MAX_MESSAGE_BYTES = 1200;
+    /** Bytes of an input message before its buttons. */
+    public static final int INPUT_HEADER_BYTES = 1 + 8 + 4 + 1;
+    /** Bytes of a state message before its blocks. */
+    public static final int STATE_HEADER_BYTES = 1 + 8 + 4 + 4 + 4 + 2;
+
+    private Protocol() {}
+}
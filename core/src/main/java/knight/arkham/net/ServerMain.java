@@ -0,0 +1,39 @@
+package knight.arkham.net;
+
+import com.badlogic.gdx.files.FileHandle;
+import knight.arkham.Koala;
+import knight.arkham.level.BinaryLevel;
+import knight.arkham.simulation.GameWorld;
+
+/** Runs a {@link SessionServer} without a window, with one session per UDP port starting at the given one, each
+ * waiting for a client started with {@code --connect host:port}. Run by the {@code core:server} Gradle task. */
+public final class ServerMain {
+
+    private ServerMain() {}
+
+    public static void main(String[] args) throws InterruptedException {
+
+        if (args.length != 3)
+            throw new IllegalArgumentException("Usage: ServerMain <level file> <first port> <sessions>");
+
+        FileHandle levelFile = new FileHandle(args[0]);
+        int firstPort = Integer.parseInt(args[1]);
+        int sessions = Integer.parseInt(args[2]);
+
+        SessionServer server = new SessionServer();
+
+        BinaryLevel level = BinaryLevel.load(levelFile);
+
+        for (int i = 0; i < sessions; i++)
+            server.addSession(createWorld(level), UdpTransport.listen(firstPort + i));
+
+        server.start();
+
+        System.out.println("Serving " + sessions + " sessions on UDP ports " + firstPort + " to " + (firstPort + sessions - 1));
+
+        Thread.currentThread().join();
+    }
+
+    /** A world for the server, it only needs the collision of the level and shares its rows with the other worlds. */
+    public static GameWorld createWorld(BinaryLevel level) {return new GameWorld(null, level.getGrid().copyOnWrite(), new Koala());}
+}
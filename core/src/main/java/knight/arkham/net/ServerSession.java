@@ -0,0 +1,148 @@
+package knight.arkham.net;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.Simulation;
+import knight.arkham.simulation.StateChecksum;
+import knight.arkham.simulation.WorldSnapshot;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** The authoritative copy of one player's world on the server. The session starts ticking a few ticks after the
+ * first input of its client arrives, so the client runs ahead of it by the latency plus that margin and its inputs
+ * are usually there in time, even with some jitter. The
+ * server never waits, a tick whose input is missing repeats the buttons of the tick before, and the client corrects
+ * itself when the state comes back. */
+public class ServerSession {
+
+    // send the state every this many ticks
+    private static final int STATE_INTERVAL = 2;
+    // server ticks between the first input and the first step
+    private static final int START_DELAY = 3;
+    private final Simulation simulation;
+    private final Transport transport;
+    private final ByteBuffer message = ByteBuffer.allocate(Protocol.MAX_MESSAGE_BYTES);
+    private final int[] inputs = new int[Protocol.HISTORY_TICKS];
+    private final long[] inputTicks = new long[Protocol.HISTORY_TICKS];
+    private boolean isStarted;
+    private int startDelay = START_DELAY;
+    private int missedInputs;
+    private int droppedMessages;
+    // blocks the client said it has, the next state sends the ones after them
+    private int acknowledgedBlocks;
+
+    public ServerSession(GameWorld world, Transport transport) {
+
+        simulation = new Simulation(world);
+        this.transport = transport;
+
+        Arrays.fill(inputTicks, -1);
+    }
+
+    public Simulation getSimulation() {return simulation;}
+
+    /** Ticks run without the client's input, because it came late or not at all. */
+    public int getMissedInputs() {return missedInputs;}
+
+    /** Messages that were short, malformed or not inputs, and were ignored. */
+    public int getDroppedMessages() {return droppedMessages;}
+
+    void tick() {
+
+        receiveInputs();
+
+        if (!isStarted)
+            return;
+
+        if (startDelay > 0) {
+
+            startDelay--;
+            return;
+        }
+
+        long tick = simulation.getTick();
+        int slot = (int) (tick % Protocol.HISTORY_TICKS);
+
+        if (inputTicks[slot] == tick)
+            simulation.getInput().setButtons(inputs[slot]);
+        else
+            missedInputs++;
+
+        simulation.step();
+
+        if (simulation.getTick() % STATE_INTERVAL == 0)
+            sendState();
+    }
+
+    private void receiveInputs() {
+
+        while (transport.receive(message)) {
+
+            if (message.remaining() < Protocol.INPUT_HEADER_BYTES || message.get() != Protocol.INPUT) {
+
+                droppedMessages++;
+                continue;
+            }
+
+            long firstTick = message.getLong();
+            int blocks = message.getInt();
+            int count = message.get() & 0xFF;
+
+            if (firstTick < 0 || blocks < 0 || count > Protocol.INPUT_REDUNDANCY || message.remaining() < count) {
+
+                droppedMessages++;
+                continue;
+            }
+
+            // inputs may arrive out of order, the client only ever gains blocks
+            acknowledgedBlocks = Math.max(acknowledgedBlocks,
+                Math.min(blocks, simulation.getWorld().getDestroyedBlockCount()));
+
+            for (int i = 0; i < count; i++) {
+
+                long tick = firstTick + i;
+                int buttons = message.get() & 0xFF;
+
+                // ticks already run can't change anymore
+                if (tick >= simulation.getTick() && tick < simulation.getTick() + Protocol.HISTORY_TICKS) {
+
+                    inputs[(int) (tick % Protocol.HISTORY_TICKS)] = buttons;
+                    inputTicks[(int) (tick % Protocol.HISTORY_TICKS)] = tick;
+                }
+            }
+
+            isStarted = true;
+        }
+    }
+
+    /** Sends the state with the blocks destroyed since the ones the client has, as many as the message has room for. */
+    private void sendState() {
+
+        GameWorld world = simulation.getWorld();
+        int room = Protocol.MAX_MESSAGE_BYTES - Protocol.STATE_HEADER_BYTES - WorldSnapshot.getByteSize(world);
+
+        if (room < 0)
+            throw new GdxRuntimeException("The world has too many actors to send its state in one message");
+
+        int blocks = Math.min(world.getDestroyedBlockCount() - acknowledgedBlocks, room / 4);
+
+        message.clear();
+        message.put(Protocol.STATE);
+        message.putLong(simulation.getTick());
+        message.putInt(StateChecksum.compute(world));
+        message.putInt(world.getDestroyedBlockCount());
+        message.putInt(acknowledgedBlocks);
+        message.putShort((short) blocks);
+
+        for (int i = acknowledgedBlocks; i < acknowledgedBlocks + blocks; i++)
+            message.putInt(world.getDestroyedBlock(i));
+
+        WorldSnapshot.write(world, message);
+        message.flip();
+
+        transport.send(message);
+    }
+
+    void close() {transport.close();}
+}
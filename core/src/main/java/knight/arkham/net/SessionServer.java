@@ -0,0 +1,137 @@
+package knight.arkham.net;
+
+import com.badlogic.gdx.utils.Array;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.Simulation;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.LockSupport;
+
+/** Headless server running many {@link ServerSession}s in one JVM at the fixed {@link Simulation#STEP}. Every tick
+ * steps all sessions, split over a fork-join pool once there are enough of them, since sessions share nothing. */
+public class SessionServer {
+
+    // below this many sessions forking costs more than it saves
+    private static final int MIN_PARALLEL_SESSIONS = 8;
+    private static final int SESSIONS_PER_TASK = 4;
+    private static final long STEP_NANOS = (long) (Simulation.STEP * 1e9);
+    private final ForkJoinPool pool;
+    private final Array<ServerSession> sessions = new Array<>(false, 16);
+    private final Queue<ServerSession> addedSessions = new ConcurrentLinkedQueue<>();
+    private volatile boolean isRunning;
+    private Thread thread;
+    private long tick;
+
+    public SessionServer() {this(ForkJoinPool.commonPool());}
+
+    public SessionServer(ForkJoinPool pool) {this.pool = pool;}
+
+    /** Adds a session for the world, it joins the tick after this one. Safe to call from any thread. */
+    public ServerSession addSession(GameWorld world, Transport transport) {
+
+        ServerSession session = new ServerSession(world, transport);
+        addedSessions.add(session);
+
+        return session;
+    }
+
+    public int getSessionCount() {return sessions.size;}
+
+    public long getTick() {return tick;}
+
+    /** Steps every session once, call it directly to run the server without its thread. */
+    public void tick() {
+
+        for (ServerSession session = addedSessions.poll(); session != null; session = addedSessions.poll())
+            sessions.add(session);
+
+        if (sessions.size < MIN_PARALLEL_SESSIONS) {
+
+            for (ServerSession session : sessions)
+                session.tick();
+        }
+        else
+            pool.invoke(new SessionTask(0, sessions.size));
+
+        tick++;
+    }
+
+    /** Ticks on a daemon thread at the fixed step until {@link #stop()}. */
+    public void start() {
+
+        isRunning = true;
+
+        thread = new Thread(this::run, "session-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+
+        long next = System.nanoTime();
+
+        while (isRunning) {
+
+            tick();
+            next += STEP_NANOS;
+
+            long wait = next - System.nanoTime();
+
+            // after a stall start counting again from now instead of running a burst of ticks
+            if (wait < -STEP_NANOS * 10)
+                next = System.nanoTime();
+            else if (wait > 0)
+                LockSupport.parkNanos(wait);
+        }
+    }
+
+    public void stop() {
+
+        isRunning = false;
+
+        if (thread != null) {
+
+            try {
+                thread.join();
+            }
+            catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for (ServerSession session : sessions)
+            session.close();
+    }
+
+    @SuppressWarnings("serial")
+    private final class SessionTask extends RecursiveAction {
+
+        private final int first;
+        private final int end;
+
+        SessionTask(int first, int end) {
+
+            this.first = first;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+
+            if (end - first <= SESSIONS_PER_TASK) {
+
+                for (int i = first; i < end; i++)
+                    sessions.get(i).tick();
+
+                return;
+            }
+
+            int middle = (first + end) >>> 1;
+
+            invokeAll(new SessionTask(first, middle), new SessionTask(middle, end));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package knight.arkham.net;
+
+import java.nio.ByteBuffer;
+
+/** One end of an unreliable message link between a client and a server session. Messages behave like UDP
+ * datagrams, they can be late, dropped or reordered, so the protocol repeats what matters. Both methods are
+ * non-blocking. */
+public interface Transport {
+
+    /** Sends the remaining bytes of the buffer as one message. */
+    void send(ByteBuffer message);
+
+    /** Clears the buffer and fills it with the next message received, ready to read. Returns false and leaves the
+     * buffer empty when there is none. */
+    boolean receive(ByteBuffer message);
+
+    void close();
+}
@@ -0,0 +1,104 @@
+package knight.arkham.net;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/** Transport over a non-blocking UDP socket. A client is given the address of the server, a server session
+ * answers whoever sent it the first message. */
+public class UdpTransport implements Transport {
+
+    private final DatagramChannel channel;
+    private SocketAddress peer;
+
+    private UdpTransport(DatagramChannel channel, SocketAddress peer) {
+
+        this.channel = channel;
+        this.peer = peer;
+    }
+
+    /** A client end on any free port talking to the server at the given address. */
+    public static UdpTransport connect(String host, int port) {return open(new InetSocketAddress(0), new InetSocketAddress(host, port));}
+
+    /** A server end listening on the port, bound to the first client that sends to it. */
+    public static UdpTransport listen(int port) {return open(new InetSocketAddress(port), null);}
+
+    private static UdpTransport open(InetSocketAddress local, SocketAddress peer) {
+
+        try {
+            DatagramChannel channel = DatagramChannel.open();
+            channel.configureBlocking(false);
+            channel.bind(local);
+
+            return new UdpTransport(channel, peer);
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't open UDP socket on " + local, exception);
+        }
+    }
+
+    @Override
+    public void send(ByteBuffer message) {
+
+        if (peer == null)
+            return;
+
+        try {
+            channel.send(message, peer);
+        }
+        catch (IOException exception) {
+            // like a dropped datagram, the protocol sends it again
+            message.position(message.limit());
+        }
+    }
+
+    @Override
+    public boolean receive(ByteBuffer message) {
+
+        message.clear();
+
+        try {
+            while (true) {
+
+                SocketAddress sender = channel.receive(message);
+
+                if (sender == null)
+                    break;
+
+                if (peer == null)
+                    peer = sender;
+
+                if (sender.equals(peer)) {
+
+                    message.flip();
+                    return true;
+                }
+
+                message.clear();
+            }
+        }
+        catch (IOException exception) {
+            // an unreachable peer shows up here on some systems, there is just nothing to read
+        }
+
+        message.clear();
+        message.limit(0);
+
+        return false;
+    }
+
+    @Override
+    public void close() {
+
+        try {
+            channel.close();
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't close UDP socket", exception);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package knight.arkham.particles;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.IntIntMap;
+import knight.arkham.events.EventBus;
+import knight.arkham.events.GameEventListener;
+
+/** Bursts a broken block into its four quarters spinning away, with a spray of coins out of the top. The quarters
+ * of a tile are split once, the first time a block of that tile breaks. */
+public class BlockEffects implements GameEventListener {
+
+    private static final int COINS = 6;
+    private static final float DEBRIS_SIZE = 0.5f;
+    private static final float DEBRIS_LIFETIME = 1.2f;
+    private static final float COIN_SIZE = 0.5f;
+    private static final float COIN_LIFETIME = 0.8f;
+    private static final float COIN_FRAME_DURATION = 0.06f;
+    private final EventBus events;
+    private final ParticleSystem particles;
+    private final int coinAnimation;
+    // first of the four quarter animations of every tile id seen so far
+    private final IntIntMap debrisAnimations = new IntIntMap();
+
+    /** @param events the bus of the world the effects are subscribed to
+     * @param coinFrames the frames of a spinning coin */
+    public BlockEffects(EventBus events, ParticleSystem particles, TextureRegion[] coinFrames) {
+
+        this.events = events;
+        this.particles = particles;
+
+        coinAnimation = particles.addAnimation(COIN_FRAME_DURATION, coinFrames);
+    }
+
+    @Override
+    public void onBlockBroken(int x, int y, Cell cell) {
+
+        // a rollback runs ticks the player has seen again, their blocks already burst
+        if (events.isResimulating())
+            return;
+
+        // blocks without a cell, in a chunk that wasn't streamed in, only give coins
+        int debris = cell == null || cell.getTile() == null ? -1 : getDebrisAnimation(cell);
+
+        for (int quarter = 0; quarter < 4 && debris != -1; quarter++) {
+
+            float side = quarter % 2 == 0 ? -1 : 1;
+            float offsetY = quarter < 2 ? 0.25f : 0.75f;
+
+            particles.spawn(debris + quarter, x + 0.5f + side * 0.25f,
+                y + offsetY, side * MathUtils.random(2f, 5f), MathUtils.random(6f, 10f), DEBRIS_SIZE, DEBRIS_LIFETIME,
+                side * MathUtils.random(4f, 10f));
+        }
+
+        for (int i = 0; i < COINS; i++)
+            particles.spawn(coinAnimation, x + 0.5f, y + 1, MathUtils.random(-3f, 3f), MathUtils.random(8f, 13f),
+                COIN_SIZE, COIN_LIFETIME, 0);
+    }
+
+    private int getDebrisAnimation(Cell cell) {
+
+        int tileId = cell.getTile().getId();
+        int animation = debrisAnimations.get(tileId, -1);
+
+        if (animation != -1)
+            return animation;
+
+        TextureRegion region = cell.getTile().getTextureRegion();
+        int width = region.getRegionWidth() / 2;
+        int height = region.getRegionHeight() / 2;
+
+        // bottom left, bottom right, top left, top right, the same order the quarters are spawned in
+        animation = particles.addAnimation(1, new TextureRegion(region, 0, height, width, height));
+        particles.addAnimation(1, new TextureRegion(region, width, height, width, height));
+        particles.addAnimation(1, new TextureRegion(region, 0, 0, width, height));
+        particles.addAnimation(1, new TextureRegion(region, width, 0, width, height));
+
+        debrisAnimations.put(tileId, animation);
+
+        return animation;
+    }
+}
@@ -0,0 +1,217 @@
+package knight.arkham.particles;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import knight.arkham.render.BatchDrawable;
+
+/** Particles kept in parallel primitive arrays, without an object per particle. The capacity is a hard budget,
+ * particles spawned past it are dropped and counted. A dead particle is swapped with the last live one, so the live
+ * particles stay packed at the front and updating and drawing them are straight loops.
+ *
+ * Every particle plays an animation, a sequence of frames added up front. All the frames have to be regions of
+ * one texture, the atlas, so the particles are drawn with a single batch call, queued in the render queue with the
+ * sprites of the atlas. */
+public class ParticleSystem implements BatchDrawable {
+
+    public static final float GRAVITY = -30;
+    private static final int MAX_FRAMES = 1024;
+    private static final int MAX_ANIMATIONS = 256;
+    // x, y, color, u, v for the four corners of a sprite, the layout SpriteBatch takes
+    private static final int SPRITE_SIZE = 20;
+    // particles fade out over the end of their life
+    private static final float FADE_TIME = 0.25f;
+    private final int capacity;
+    private final float[] x;
+    private final float[] y;
+    private final float[] velocityX;
+    private final float[] velocityY;
+    private final float[] angle;
+    private final float[] spin;
+    private final float[] size;
+    private final float[] age;
+    private final float[] lifetime;
+    private final short[] animations;
+    private final float[] u = new float[MAX_FRAMES];
+    private final float[] v = new float[MAX_FRAMES];
+    private final float[] u2 = new float[MAX_FRAMES];
+    private final float[] v2 = new float[MAX_FRAMES];
+    private final int[] firstFrames = new int[MAX_ANIMATIONS];
+    private final int[] frameCounts = new int[MAX_ANIMATIONS];
+    private final float[] frameDurations = new float[MAX_ANIMATIONS];
+    private final float[] vertices;
+    private Texture texture;
+    private int frameCount;
+    private int animationCount;
+    private int liveCount;
+    private int peakCount;
+    private long droppedCount;
+
+    public ParticleSystem(int capacity) {
+
+        this.capacity = capacity;
+
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        angle = new float[capacity];
+        spin = new float[capacity];
+        size = new float[capacity];
+        age = new float[capacity];
+        lifetime = new float[capacity];
+        animations = new short[capacity];
+        vertices = new float[capacity * SPRITE_SIZE];
+    }
+
+    /** Adds an animation looping through the frames and returns its id, a single frame makes a still particle. */
+    public int addAnimation(float frameDuration, TextureRegion... frames) {
+
+        if (animationCount == MAX_ANIMATIONS || frameCount + frames.length > MAX_FRAMES)
+            throw new GdxRuntimeException("More than " + MAX_ANIMATIONS + " particle animations or " + MAX_FRAMES + " frames");
+
+        firstFrames[animationCount] = frameCount;
+        frameCounts[animationCount] = frames.length;
+        frameDurations[animationCount] = frameDuration;
+
+        for (TextureRegion frame : frames) {
+
+            if (texture == null)
+                texture = frame.getTexture();
+            else if (frame.getTexture() != texture)
+                throw new GdxRuntimeException("Particle frames must all be in the same texture");
+
+            u[frameCount] = frame.getU();
+            v[frameCount] = frame.getV();
+            u2[frameCount] = frame.getU2();
+            v2[frameCount] = frame.getV2();
+            frameCount++;
+        }
+
+        return animationCount++;
+    }
+
+    /** Spawns a particle centered on the position, returns false when the budget is used up and it was dropped.
+     * @param particleSpin radians per second */
+    public boolean spawn(int animation, float positionX, float positionY, float speedX, float speedY, float particleSize,
+                         float particleLifetime, float particleSpin) {
+
+        if (liveCount == capacity) {
+
+            droppedCount++;
+            return false;
+        }
+
+        int i = liveCount++;
+
+        x[i] = positionX;
+        y[i] = positionY;
+        velocityX[i] = speedX;
+        velocityY[i] = speedY;
+        angle[i] = 0;
+        spin[i] = particleSpin;
+        size[i] = particleSize;
+        age[i] = 0;
+        lifetime[i] = particleLifetime;
+        animations[i] = (short) animation;
+
+        peakCount = Math.max(peakCount, liveCount);
+
+        return true;
+    }
+
+    /** Moves every live particle and removes the ones whose lifetime ran out. */
+    public void update(float delta) {
+
+        float gravity = GRAVITY * delta;
+
+        for (int i = 0; i < liveCount; i++) {
+
+            velocityY[i] += gravity;
+            x[i] += velocityX[i] * delta;
+            y[i] += velocityY[i] * delta;
+            angle[i] += spin[i] * delta;
+            age[i] += delta;
+        }
+
+        // removal goes backwards, so the particle swapped in has already been looked at
+        for (int i = liveCount - 1; i >= 0; i--) {
+
+            if (age[i] >= lifetime[i])
+                remove(i);
+        }
+    }
+
+    private void remove(int i) {
+
+        int last = --liveCount;
+
+        x[i] = x[last];
+        y[i] = y[last];
+        velocityX[i] = velocityX[last];
+        velocityY[i] = velocityY[last];
+        angle[i] = angle[last];
+        spin[i] = spin[last];
+        size[i] = size[last];
+        age[i] = age[last];
+        lifetime[i] = lifetime[last];
+        animations[i] = animations[last];
+    }
+
+    /** The texture of the frames, null before the first animation is added. */
+    @Override
+    public Texture getTexture() {return texture;}
+
+    /** Draws the live particles with one call, the batch must be drawing. */
+    @Override
+    public void draw(Batch batch) {
+
+        if (liveCount == 0)
+            return;
+
+        for (int i = 0; i < liveCount; i++) {
+
+            int animation = animations[i];
+            int frame = firstFrames[animation] + (int)(age[i] / frameDurations[animation]) % frameCounts[animation];
+
+            float half = size[i] / 2;
+            float cos = half * MathUtils.cos(angle[i]);
+            float sin = half * MathUtils.sin(angle[i]);
+            float color = Color.toFloatBits(1f, 1f, 1f, Math.min(1, (lifetime[i] - age[i]) / FADE_TIME));
+
+            int offset = i * SPRITE_SIZE;
+
+            putVertex(offset, x[i] - cos + sin, y[i] - sin - cos, color, u[frame], v2[frame]);
+            putVertex(offset + 5, x[i] - cos - sin, y[i] - sin + cos, color, u[frame], v[frame]);
+            putVertex(offset + 10, x[i] + cos - sin, y[i] + sin + cos, color, u2[frame], v[frame]);
+            putVertex(offset + 15, x[i] + cos + sin, y[i] + sin - cos, color, u2[frame], v2[frame]);
+        }
+
+        batch.draw(texture, vertices, 0, liveCount * SPRITE_SIZE);
+    }
+
+    private void putVertex(int offset, float vertexX, float vertexY, float color, float vertexU, float vertexV) {
+
+        vertices[offset] = vertexX;
+        vertices[offset + 1] = vertexY;
+        vertices[offset + 2] = color;
+        vertices[offset + 3] = vertexU;
+        vertices[offset + 4] = vertexV;
+    }
+
+    /** Removes every particle, like when the world is rewound. */
+    public void clear() {liveCount = 0;}
+
+    public int getCapacity() {return capacity;}
+
+    public int getLiveCount() {return liveCount;}
+
+    /** The most particles alive at once so far. */
+    public int getPeakCount() {return peakCount;}
+
+    /** Particles not spawned because the budget was used up. */
+    public long getDroppedCount() {return droppedCount;}
+}
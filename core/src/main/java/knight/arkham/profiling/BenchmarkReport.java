@@ -0,0 +1,72 @@
+package knight.arkham.profiling;
+
+import com.badlogic.gdx.Gdx;
+
+/** Totals of an uncapped run over a fixed number of frames, taken from the {@link FrameProfiler} after each frame
+ * and logged once the run ends: frames and ticks per second, frame time percentiles over the whole run, bytes
+ * allocated per frame and the collections that ran. */
+public class BenchmarkReport {
+
+    private final int frames;
+    private final RollingStats frameStats;
+    private long start;
+    private long end;
+    private int count;
+    private long ticks;
+    private long allocatedBytes;
+    private long collections;
+    private long collectionMillis;
+    private long drawCalls;
+
+    /** @param frames frames the run lasts, every one of them is kept for the percentiles */
+    public BenchmarkReport(int frames) {
+
+        this.frames = frames;
+
+        frameStats = new RollingStats(Math.max(1, frames));
+    }
+
+    /** Adds the frame the profiler just ended and the ticks it ran. */
+    public void add(FrameProfiler profiler, int frameTicks) {
+
+        end = System.nanoTime();
+
+        // the run is timed from the start of its first frame
+        if (count == 0)
+            start = end - profiler.getFrameNanos();
+
+        count++;
+        ticks += frameTicks;
+        allocatedBytes += Math.max(0, profiler.getAllocatedBytes());
+        collections += profiler.getFrameCollections();
+        collectionMillis += profiler.getFrameCollectionMillis();
+        drawCalls += profiler.getDrawCalls();
+        frameStats.add(profiler.getFrameNanos());
+    }
+
+    public boolean isFinished() {return count >= frames;}
+
+    public int getCount() {return count;}
+
+    public void log() {
+
+        if (count == 0) {
+
+            Gdx.app.log("Benchmark", "No frames were run");
+            return;
+        }
+
+        frameStats.update();
+
+        double seconds = (end - start) / 1e9;
+
+        Gdx.app.log("Benchmark", count + " frames and " + ticks + " ticks in " + format(seconds * 1000) + " ms");
+        Gdx.app.log("Benchmark", format(count / seconds) + " frames/s, " + format(ticks / seconds) + " ticks/s");
+        Gdx.app.log("Benchmark", "Frame p50 " + format(frameStats.getP50() / 1e6) + " ms, p99 "
+            + format(frameStats.getP99() / 1e6) + " ms, max " + format(frameStats.getMax() / 1e6) + " ms");
+        Gdx.app.log("Benchmark", allocatedBytes / count + " bytes allocated and " + drawCalls / count
+            + " draw calls per frame, " + collections + " collections for " + collectionMillis + " ms");
+    }
+
+    private static String format(double value) {return String.format("%.2f", value);}
+}
@@ -0,0 +1,194 @@
+package knight.arkham.profiling;
+
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+/** Times the {@link ProfilerSection}s of every frame in nanoseconds and keeps rolling percentiles of them, along
+ * with the draw calls and texture binds counted by a {@link GLProfiler}, the bytes allocated by the render thread
+ * and the garbage collections that ran. Sections can be timed several times in a frame, like collision once per
+ * tick, the times add up. A {@link MetricsWriter} can be given to stream every frame to a file. */
+public class FrameProfiler {
+
+    public static final int WINDOW = 300;
+    // percentiles are sorted again every this many frames
+    private static final int UPDATE_INTERVAL = 15;
+    private static final ProfilerSection[] SECTIONS = ProfilerSection.values();
+    private final long[] starts = new long[SECTIONS.length];
+    private final long[] sectionNanos = new long[SECTIONS.length];
+    private final RollingStats[] sectionStats = new RollingStats[SECTIONS.length];
+    private final RollingStats frameStats = new RollingStats(WINDOW);
+    private final RollingStats allocationStats = new RollingStats(WINDOW);
+    private final GLProfiler glProfiler;
+    private final com.sun.management.ThreadMXBean allocationBean;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final long renderThreadId = Thread.currentThread().getId();
+    private MetricsWriter metricsWriter;
+    private long frame;
+    private long frameStart;
+    private long frameNanos;
+    private long allocationStart;
+    private long allocatedBytes;
+    private long collectionCount;
+    private long collectionMillis;
+    private long frameCollections;
+    private long frameCollectionMillis;
+    private int drawCalls;
+    private int textureBindings;
+    private int shaderSwitches;
+    private int liveParticles;
+    private long droppedParticles;
+
+    /** @param glProfiler enabled by this profiler, null when there is no GL context like in headless runs */
+    public FrameProfiler(GLProfiler glProfiler) {
+
+        this.glProfiler = glProfiler;
+
+        if (glProfiler != null)
+            glProfiler.enable();
+
+        for (int i = 0; i < SECTIONS.length; i++)
+            sectionStats[i] = new RollingStats(WINDOW);
+
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+        // only HotSpot based JVMs count allocations per thread
+        if (threadBean instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported())
+            allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        else
+            allocationBean = null;
+
+        collectionCount = countCollections();
+        collectionMillis = countCollectionMillis();
+    }
+
+    public void setMetricsWriter(MetricsWriter metricsWriter) {this.metricsWriter = metricsWriter;}
+
+    /** The particles alive this frame and those dropped over the budget so far, reported along with the frame. */
+    public void setParticles(int liveParticles, long droppedParticles) {
+
+        this.liveParticles = liveParticles;
+        this.droppedParticles = droppedParticles;
+    }
+
+    public void beginFrame() {
+
+        for (int i = 0; i < sectionNanos.length; i++)
+            sectionNanos[i] = 0;
+
+        if (glProfiler != null)
+            glProfiler.reset();
+
+        allocationStart = readAllocatedBytes();
+        frameStart = System.nanoTime();
+    }
+
+    public void begin(ProfilerSection section) {starts[section.ordinal()] = System.nanoTime();}
+
+    public void end(ProfilerSection section) {sectionNanos[section.ordinal()] += System.nanoTime() - starts[section.ordinal()];}
+
+    public void endFrame() {
+
+        frameNanos = System.nanoTime() - frameStart;
+        allocatedBytes = allocationStart == -1 ? -1 : readAllocatedBytes() - allocationStart;
+
+        long collections = countCollections();
+        long millis = countCollectionMillis();
+
+        frameCollections = collections - collectionCount;
+        frameCollectionMillis = millis - collectionMillis;
+        collectionCount = collections;
+        collectionMillis = millis;
+
+        if (glProfiler != null) {
+
+            drawCalls = glProfiler.getDrawCalls();
+            textureBindings = glProfiler.getTextureBindings();
+            shaderSwitches = glProfiler.getShaderSwitches();
+        }
+
+        frameStats.add(frameNanos);
+        allocationStats.add(Math.max(0, allocatedBytes));
+
+        for (int i = 0; i < SECTIONS.length; i++)
+            sectionStats[i].add(sectionNanos[i]);
+
+        if (frame % UPDATE_INTERVAL == 0) {
+
+            frameStats.update();
+            allocationStats.update();
+
+            for (RollingStats stats : sectionStats)
+                stats.update();
+        }
+
+        if (metricsWriter != null)
+            metricsWriter.write(this);
+
+        frame++;
+    }
+
+    private long readAllocatedBytes() {return allocationBean == null ? -1 : allocationBean.getThreadAllocatedBytes(renderThreadId);}
+
+    private long countCollections() {
+
+        long count = 0;
+
+        for (GarbageCollectorMXBean collector : collectors)
+            count += Math.max(0, collector.getCollectionCount());
+
+        return count;
+    }
+
+    private long countCollectionMillis() {
+
+        long millis = 0;
+
+        for (GarbageCollectorMXBean collector : collectors)
+            millis += Math.max(0, collector.getCollectionTime());
+
+        return millis;
+    }
+
+    public long getFrame() {return frame;}
+
+    public long getFrameNanos() {return frameNanos;}
+
+    public long getSectionNanos(ProfilerSection section) {return sectionNanos[section.ordinal()];}
+
+    public RollingStats getFrameStats() {return frameStats;}
+
+    public RollingStats getSectionStats(ProfilerSection section) {return sectionStats[section.ordinal()];}
+
+    public RollingStats getAllocationStats() {return allocationStats;}
+
+    /** Bytes allocated by the render thread during the last frame, -1 when the JVM can't tell. */
+    public long getAllocatedBytes() {return allocatedBytes;}
+
+    public long getFrameCollections() {return frameCollections;}
+
+    public long getFrameCollectionMillis() {return frameCollectionMillis;}
+
+    public int getDrawCalls() {return drawCalls;}
+
+    public int getTextureBindings() {return textureBindings;}
+
+    public int getShaderSwitches() {return shaderSwitches;}
+
+    public int getLiveParticles() {return liveParticles;}
+
+    public long getDroppedParticles() {return droppedParticles;}
+
+    public void dispose() {
+
+        if (glProfiler != null)
+            glProfiler.disable();
+
+        if (metricsWriter != null)
+            metricsWriter.close();
+    }
+}
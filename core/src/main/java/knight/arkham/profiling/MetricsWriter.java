@@ -0,0 +1,112 @@
+package knight.arkham.profiling;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/** Streams a row of {@link FrameProfiler} metrics per frame to a file, to compare builds under the same load. Files
+ * ending in .json get one JSON object per line, anything else gets CSV with a header row. Times are in
+ * nanoseconds. */
+public class MetricsWriter {
+
+    private static final ProfilerSection[] SECTIONS = ProfilerSection.values();
+    private static final String[] KEYS = new String[SECTIONS.length];
+    private final Writer writer;
+    private final boolean isJson;
+    private final StringBuilder line = new StringBuilder(256);
+
+    static {
+
+        for (int i = 0; i < SECTIONS.length; i++)
+            KEYS[i] = SECTIONS[i].name().toLowerCase() + "_ns";
+    }
+
+    public MetricsWriter(File file) {
+
+        isJson = file.getName().endsWith(".json");
+
+        try {
+            writer = new BufferedWriter(new FileWriter(file), 64 * 1024);
+
+            if (!isJson)
+                writeHeader();
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't open metrics file: " + file, exception);
+        }
+    }
+
+    private void writeHeader() throws IOException {
+
+        line.setLength(0);
+        line.append("frame,frame_ns");
+
+        for (String key : KEYS)
+            line.append(',').append(key);
+
+        line.append(",draw_calls,texture_bindings,shader_switches,allocated_bytes,gc_count,gc_ms,particles,particles_dropped\n");
+        writer.append(line);
+    }
+
+    public void write(FrameProfiler profiler) {
+
+        line.setLength(0);
+
+        if (isJson) {
+
+            line.append("{\"frame\":").append(profiler.getFrame());
+            line.append(",\"frame_ns\":").append(profiler.getFrameNanos());
+
+            for (int i = 0; i < SECTIONS.length; i++)
+                line.append(",\"").append(KEYS[i]).append("\":").append(profiler.getSectionNanos(SECTIONS[i]));
+
+            line.append(",\"draw_calls\":").append(profiler.getDrawCalls());
+            line.append(",\"texture_bindings\":").append(profiler.getTextureBindings());
+            line.append(",\"shader_switches\":").append(profiler.getShaderSwitches());
+            line.append(",\"allocated_bytes\":").append(profiler.getAllocatedBytes());
+            line.append(",\"gc_count\":").append(profiler.getFrameCollections());
+            line.append(",\"gc_ms\":").append(profiler.getFrameCollectionMillis());
+            line.append(",\"particles\":").append(profiler.getLiveParticles());
+            line.append(",\"particles_dropped\":").append(profiler.getDroppedParticles());
+            line.append("}\n");
+        }
+        else {
+
+            line.append(profiler.getFrame()).append(',').append(profiler.getFrameNanos());
+
+            for (ProfilerSection section : SECTIONS)
+                line.append(',').append(profiler.getSectionNanos(section));
+
+            line.append(',').append(profiler.getDrawCalls());
+            line.append(',').append(profiler.getTextureBindings());
+            line.append(',').append(profiler.getShaderSwitches());
+            line.append(',').append(profiler.getAllocatedBytes());
+            line.append(',').append(profiler.getFrameCollections());
+            line.append(',').append(profiler.getFrameCollectionMillis());
+            line.append(',').append(profiler.getLiveParticles());
+            line.append(',').append(profiler.getDroppedParticles());
+            line.append('\n');
+        }
+
+        try {
+            writer.append(line);
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't write metrics", exception);
+        }
+    }
+
+    public void close() {
+
+        try {
+            writer.close();
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't close metrics file", exception);
+        }
+    }
+}
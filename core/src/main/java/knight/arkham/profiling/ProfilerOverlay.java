@@ -0,0 +1,126 @@
+package knight.arkham.profiling;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.math.Matrix4;
+
+/** Draws the {@link FrameProfiler} numbers over the game in screen pixels: p50, p99 and max of every section and
+ * of the whole frame, the GL counters, allocations and collections, and a graph of the frame times in the window,
+ * with a line at 60 fps. */
+public class ProfilerOverlay {
+
+    private static final float MARGIN = 8;
+    private static final float GRAPH_HEIGHT = 60;
+    private static final long FRAME_BUDGET_NANOS = 1000000000L / 60;
+    // the text is only laid out again this often, so drawing it stays cheap
+    private static final int TEXT_INTERVAL = 15;
+    private final SpriteBatch batch = new SpriteBatch();
+    private final ShapeRenderer shapes = new ShapeRenderer();
+    private final BitmapFont font = new BitmapFont();
+    private final Matrix4 projection = new Matrix4();
+    private final StringBuilder text = new StringBuilder(1024);
+    private int frames;
+
+    public void draw(FrameProfiler profiler) {
+
+        float width = Gdx.graphics.getWidth();
+        float height = Gdx.graphics.getHeight();
+
+        projection.setToOrtho2D(0, 0, width, height);
+
+        if (frames++ % TEXT_INTERVAL == 0)
+            buildText(profiler);
+
+        drawGraph(profiler.getFrameStats(), width);
+
+        batch.setProjectionMatrix(projection);
+        batch.begin();
+        font.draw(batch, text, MARGIN, height - MARGIN);
+        batch.end();
+    }
+
+    private void buildText(FrameProfiler profiler) {
+
+        text.setLength(0);
+        text.append("section          p50 us   p99 us   max us\n");
+
+        appendStats("frame", profiler.getFrameStats());
+
+        for (ProfilerSection section : ProfilerSection.values())
+            appendStats(section.label, profiler.getSectionStats(section));
+
+        text.append("draw calls ").append(profiler.getDrawCalls());
+        text.append("  texture binds ").append(profiler.getTextureBindings());
+        text.append("  shader switches ").append(profiler.getShaderSwitches()).append('\n');
+
+        if (profiler.getAllocatedBytes() >= 0) {
+
+            RollingStats allocations = profiler.getAllocationStats();
+
+            text.append("allocated per frame p50 ").append(allocations.getP50());
+            text.append(" B  max ").append(allocations.getMax()).append(" B\n");
+        }
+
+        text.append("particles ").append(profiler.getLiveParticles());
+        text.append("  dropped ").append(profiler.getDroppedParticles()).append('\n');
+        text.append("gc ").append(profiler.getFrameCollections()).append(" in the last frame");
+    }
+
+    private void appendStats(String label, RollingStats stats) {
+
+        text.append(label);
+
+        for (int i = label.length(); i < 14; i++)
+            text.append(' ');
+
+        appendMicros(stats.getP50());
+        appendMicros(stats.getP99());
+        appendMicros(stats.getMax());
+        text.append('\n');
+    }
+
+    private void appendMicros(long nanos) {
+
+        long tenths = nanos / 100;
+        int start = text.length();
+
+        text.append(tenths / 10).append('.').append(tenths % 10);
+
+        // right align in 9 columns
+        while (text.length() - start < 9)
+            text.insert(start, ' ');
+    }
+
+    private void drawGraph(RollingStats frameStats, float width) {
+
+        float barWidth = (width - MARGIN * 2) / FrameProfiler.WINDOW;
+        float scale = GRAPH_HEIGHT / (FRAME_BUDGET_NANOS * 2f);
+
+        shapes.setProjectionMatrix(projection);
+        shapes.begin(ShapeType.Filled);
+
+        for (int age = 0; age < frameStats.getCount(); age++) {
+
+            long nanos = frameStats.getSample(age);
+
+            shapes.setColor(nanos > FRAME_BUDGET_NANOS ? Color.RED : Color.GREEN);
+            shapes.rect(width - MARGIN - (age + 1) * barWidth, MARGIN, barWidth,
+                Math.min(GRAPH_HEIGHT, nanos * scale));
+        }
+
+        shapes.setColor(Color.WHITE);
+        shapes.rect(MARGIN, MARGIN + FRAME_BUDGET_NANOS * scale, width - MARGIN * 2, 1);
+        shapes.end();
+    }
+
+    public void dispose() {
+
+        batch.dispose();
+        shapes.dispose();
+        font.dispose();
+    }
+}
@@ -0,0 +1,21 @@
+package knight.arkham.profiling;
+
+/** The parts of a frame the {@link FrameProfiler} times. Collision, actors and broadphase run inside update. */
+public enum ProfilerSection {
+
+    INPUT("input"),
+    UPDATE("update"),
+    COLLISION("collision"),
+    ACTORS("actors"),
+    BROADPHASE("broadphase"),
+    STREAMING("streaming"),
+    ASSETS("assets"),
+    PARTICLES("particles"),
+    SPRITES("sprites"),
+    MAP_RENDER("map render"),
+    DEBUG_RENDER("debug render");
+
+    public final String label;
+
+    ProfilerSection(String label) {this.label = label;}
+}
@@ -0,0 +1,55 @@
+package knight.arkham.profiling;
+
+import java.util.Arrays;
+
+/** The last {@code window} samples of a value, with their median, 99th percentile and maximum. */
+public class RollingStats {
+
+    private final long[] samples;
+    private final long[] sorted;
+    private int count;
+    private int next;
+    private long p50;
+    private long p99;
+    private long max;
+
+    public RollingStats(int window) {
+
+        samples = new long[window];
+        sorted = new long[window];
+    }
+
+    public void add(long sample) {
+
+        samples[next] = sample;
+        next = (next + 1) % samples.length;
+
+        if (count < samples.length)
+            count++;
+    }
+
+    /** Recomputes the percentiles, sorting a copy of the window so it is meant to run every few frames. */
+    public void update() {
+
+        if (count == 0)
+            return;
+
+        System.arraycopy(samples, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+
+        p50 = sorted[(count - 1) / 2];
+        p99 = sorted[(int) Math.ceil(count * 0.99) - 1];
+        max = sorted[count - 1];
+    }
+
+    public int getCount() {return count;}
+
+    /** A sample of the window, age 0 being the newest. */
+    public long getSample(int age) {return samples[(next - 1 - age + samples.length * 2) % samples.length];}
+
+    public long getP50() {return p50;}
+
+    public long getP99() {return p99;}
+
+    public long getMax() {return max;}
+}
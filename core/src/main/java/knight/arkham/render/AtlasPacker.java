@@ -0,0 +1,99 @@
+package knight.arkham.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture.TextureFilter;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+
+/** Packs images into a texture atlas when the game starts, so sprites and tiles can share one texture and the batch
+ * doesn't flush between them. */
+public final class AtlasPacker {
+
+    private static final int PAGE_SIZE = 512;
+    private static final int PADDING = 2;
+    /** Frames of a spinning coin, drawn when the atlas is packed since there's no image of one. */
+    public static final String COIN_REGION = "coin";
+    public static final int COIN_SIZE = 8;
+    // the width of the coin in each frame, as it turns edge on and back
+    private static final float[] COIN_WIDTHS = {1, 0.7f, 0.2f, 0.7f};
+
+    private AtlasPacker() {}
+
+    /** Packs internal image files into an atlas, each region named after its file without the extension. */
+    public static TextureAtlas pack(String... files) {
+
+        FileHandle[] images = new FileHandle[files.length];
+
+        for (int i = 0; i < files.length; i++)
+            images[i] = Gdx.files.internal(files[i]);
+
+        return upload(packPixmaps(images));
+    }
+
+    /** Decodes and packs the images without touching GL, so it can run off the render thread. */
+    public static PixmapPacker packPixmaps(FileHandle... images) {
+
+        PixmapPacker packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Format.RGBA8888, PADDING, false);
+
+        for (FileHandle image : images) {
+
+            Pixmap pixmap = new Pixmap(image);
+            packer.pack(getRegionName(image.name()), pixmap);
+            pixmap.dispose();
+        }
+
+        Pixmap coin = drawCoin();
+        packer.pack(COIN_REGION, coin);
+        coin.dispose();
+
+        return packer;
+    }
+
+    private static Pixmap drawCoin() {
+
+        Pixmap pixmap = new Pixmap(COIN_SIZE * COIN_WIDTHS.length, COIN_SIZE, Format.RGBA8888);
+        float radius = COIN_SIZE / 2f;
+
+        pixmap.setColor(0);
+        pixmap.fill();
+
+        for (int frame = 0; frame < COIN_WIDTHS.length; frame++) {
+
+            for (int y = 0; y < COIN_SIZE; y++) {
+
+                for (int x = 0; x < COIN_SIZE; x++) {
+
+                    float dx = (x + 0.5f - radius) / (radius * COIN_WIDTHS[frame]);
+                    float dy = (y + 0.5f - radius) / radius;
+                    float distance = dx * dx + dy * dy;
+
+                    // gold with a darker rim
+                    if (distance <= 1)
+                        pixmap.drawPixel(frame * COIN_SIZE + x, y, distance > 0.55f ? 0xC08000FF : 0xFFD700FF);
+                }
+            }
+        }
+
+        return pixmap;
+    }
+
+    /** Uploads the pages of the packer as textures, on the render thread, and disposes the packer. */
+    public static TextureAtlas upload(PixmapPacker packer) {
+
+        TextureAtlas atlas = packer.generateTextureAtlas(TextureFilter.Nearest, TextureFilter.Nearest, false);
+        packer.dispose();
+
+        return atlas;
+    }
+
+    public static String getRegionName(String file) {
+
+        String name = file.substring(file.lastIndexOf('/') + 1);
+        int extension = name.lastIndexOf('.');
+
+        return extension == -1 ? name : name.substring(0, extension);
+    }
+}
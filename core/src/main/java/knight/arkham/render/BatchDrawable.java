@@ -0,0 +1,15 @@
+package knight.arkham.render;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+
+/** Something that fills the batch with its own vertices, like particles, queued in a {@link RenderQueue} to be
+ * drawn in its layer alongside the sprites. */
+public interface BatchDrawable {
+
+    /** The one texture everything is drawn from, it is sorted with the sprites of that texture. */
+    Texture getTexture();
+
+    /** Draws with the batch, which is drawing. */
+    void draw(Batch batch);
+}
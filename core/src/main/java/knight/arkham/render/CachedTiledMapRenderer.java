@@ -0,0 +1,517 @@
+package knight.arkham.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes.Usage;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.maps.MapLayers;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.maps.tiled.tiles.AnimatedTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import knight.arkham.level.TileChangeListener;
+
+/** Tile map renderer that bakes each {@value #CHUNK_SIZE}x{@value #CHUNK_SIZE} tile chunk of a layer into a static
+ * vertex buffer the first time it is visible, and afterwards draws a visible chunk with one draw call per texture
+ * instead of submitting its tiles to the batch every frame. A chunk is only rebuilt after
+ * {@link #onTilesChanged} touches it in its layer, and buffers of chunks that stay out of view are freed.
+ * Animated tiles can't be baked, they still go through the batch. */
+public class CachedTiledMapRenderer extends OrthogonalTiledMapRenderer implements TileChangeListener {
+
+    public static final int CHUNK_SIZE = 16;
+    private static final int FRAMES_BEFORE_EVICTION = 300;
+    private static final int MAX_QUADS = CHUNK_SIZE * CHUNK_SIZE;
+    private final ObjectMap<TiledMapTileLayer, LayerCache> layerCaches = new ObjectMap<>();
+    private final Array<ChunkCache> liveChunks = new Array<>(false, 64);
+    private final Array<Texture> chunkTextures = new Array<>(false, 4);
+    private final float[] chunkVertices = new float[MAX_QUADS * NUM_VERTICES];
+    private final float[] quad = new float[NUM_VERTICES];
+    // u and v of the four corners of a quad, from the bottom left going clockwise
+    private final float[] u = new float[4];
+    private final float[] v = new float[4];
+    private long frame;
+    private int rebuiltChunks;
+    private int drawnChunks;
+    private int drawnAnimatedTiles;
+
+    public CachedTiledMapRenderer(TiledMap map, float unitScale) {super(map, unitScale);}
+
+    @Override
+    public void render() {
+
+        frame++;
+        rebuiltChunks = 0;
+        drawnChunks = 0;
+        drawnAnimatedTiles = 0;
+
+        super.render();
+
+        evictUnused();
+    }
+
+    /** Renders the map and the queued sprites in one batch pass, each sprite right after the map layer its layer
+     * points to, then clears the queue. */
+    public void render(RenderQueue queue) {
+
+        frame++;
+        rebuiltChunks = 0;
+        drawnChunks = 0;
+        drawnAnimatedTiles = 0;
+
+        beginRender();
+
+        MapLayers layers = map.getLayers();
+
+        for (int i = 0; i < layers.size(); i++) {
+
+            renderMapLayer(layers.get(i));
+            queue.submit(batch, i);
+        }
+
+        queue.submit(batch, RenderQueue.TOP_LAYER);
+        queue.clear();
+
+        endRender();
+
+        evictUnused();
+    }
+
+    /** Chunks baked during the last frame, stays at 0 while the map doesn't change and the camera stands still. */
+    public int getRebuiltChunks() {return rebuiltChunks;}
+
+    public int getDrawnChunks() {return drawnChunks;}
+
+    /** Animated tiles drawn during the last frame, while there are any the frame changes even if nothing moves. */
+    public int getDrawnAnimatedTiles() {return drawnAnimatedTiles;}
+
+    @Override
+    public void renderTileLayer(TiledMapTileLayer layer) {
+
+        // anything already in the batch goes first, the cached tiles are drawn straight away
+        batch.flush();
+
+        LayerCache cache = getLayerCache(layer);
+
+        Color batchColor = batch.getColor();
+        float color = Color.toFloatBits(batchColor.r, batchColor.g, batchColor.b, batchColor.a * layer.getOpacity());
+
+        // the tint is baked into the vertices
+        if (cache.color != color) {
+
+            cache.color = color;
+            cache.invalidateAll();
+        }
+
+        float layerTileWidth = layer.getTileWidth() * unitScale;
+        float layerTileHeight = layer.getTileHeight() * unitScale;
+        float layerOffsetX = layer.getRenderOffsetX() * unitScale;
+        float layerOffsetY = -layer.getRenderOffsetY() * unitScale;
+
+        // same visible range as OrthogonalTiledMapRenderer, in chunks
+        int col1 = Math.max(0, (int)((viewBounds.x - layerOffsetX) / layerTileWidth));
+        int col2 = Math.min(layer.getWidth() - 1,
+            (int)((viewBounds.x + viewBounds.width + layerTileWidth - layerOffsetX) / layerTileWidth));
+        int row1 = Math.max(0, (int)((viewBounds.y - layerOffsetY) / layerTileHeight));
+        int row2 = Math.min(layer.getHeight() - 1,
+            (int)((viewBounds.y + viewBounds.height + layerTileHeight - layerOffsetY) / layerTileHeight));
+
+        ShaderProgram shader = batch.getShader();
+
+        // the batch only turns blending on while it flushes sprites, the meshes need it for the transparent texels
+        // and the layer opacity
+        if (batch.isBlendingEnabled()) {
+
+            Gdx.gl.glEnable(GL20.GL_BLEND);
+
+            if (batch.getBlendSrcFunc() != -1)
+                Gdx.gl.glBlendFuncSeparate(batch.getBlendSrcFunc(), batch.getBlendDstFunc(),
+                    batch.getBlendSrcFuncAlpha(), batch.getBlendDstFuncAlpha());
+        }
+
+        for (int chunkY = row2 / CHUNK_SIZE; chunkY >= row1 / CHUNK_SIZE; chunkY--) {
+
+            for (int chunkX = col1 / CHUNK_SIZE; chunkX <= col2 / CHUNK_SIZE; chunkX++) {
+
+                ChunkCache chunk = cache.get(chunkX, chunkY);
+
+                if (chunk == null) {
+
+                    chunk = cache.create(chunkX, chunkY);
+                    liveChunks.add(chunk);
+                }
+
+                if (chunk.isDirty) {
+
+                    rebuild(layer, chunk, color, layerTileWidth, layerTileHeight, layerOffsetX, layerOffsetY);
+                    rebuiltChunks++;
+                }
+
+                chunk.lastUsed = frame;
+                chunk.draw(shader);
+                drawnChunks++;
+
+                // animated tiles change region every few frames, they are drawn through the batch
+                for (int i = 0; i < chunk.animatedCells.size; i++) {
+
+                    int index = chunk.animatedCells.get(i);
+                    int col = chunkX * CHUNK_SIZE + index % CHUNK_SIZE;
+                    int row = chunkY * CHUNK_SIZE + index / CHUNK_SIZE;
+                    Cell cell = layer.getCell(col, row);
+
+                    if (cell != null && cell.getTile() != null) {
+
+                        writeQuad(quad, 0, cell, col * layerTileWidth + layerOffsetX,
+                            row * layerTileHeight + layerOffsetY, color);
+                        batch.draw(cell.getTile().getTextureRegion().getTexture(), quad, 0, NUM_VERTICES);
+                        drawnAnimatedTiles++;
+                    }
+                }
+            }
+        }
+
+        // back to what the batch expects between its flushes, it sets blending again when it draws
+        Gdx.gl.glDisable(GL20.GL_BLEND);
+    }
+
+    private LayerCache getLayerCache(TiledMapTileLayer layer) {
+
+        LayerCache cache = layerCaches.get(layer);
+
+        if (cache == null) {
+
+            cache = new LayerCache(layer);
+            layerCaches.put(layer, cache);
+        }
+
+        return cache;
+    }
+
+    /** Bakes the chunk tiles into its vertex buffer grouped by texture, rows from the top like the batch renderer. */
+    private void rebuild(TiledMapTileLayer layer, ChunkCache chunk, float color, float layerTileWidth,
+                         float layerTileHeight, float layerOffsetX, float layerOffsetY) {
+
+        chunk.isDirty = false;
+        chunk.animatedCells.clear();
+        chunkTextures.clear();
+
+        int firstCol = chunk.chunkX * CHUNK_SIZE;
+        int firstRow = chunk.chunkY * CHUNK_SIZE;
+
+        for (int row = CHUNK_SIZE - 1; row >= 0; row--) {
+
+            for (int col = 0; col < CHUNK_SIZE; col++) {
+
+                Cell cell = layer.getCell(firstCol + col, firstRow + row);
+
+                if (cell == null || cell.getTile() == null)
+                    continue;
+
+                if (cell.getTile() instanceof AnimatedTiledMapTile) {
+
+                    chunk.animatedCells.add(row * CHUNK_SIZE + col);
+                    continue;
+                }
+
+                Texture texture = cell.getTile().getTextureRegion().getTexture();
+
+                if (!chunkTextures.contains(texture, true))
+                    chunkTextures.add(texture);
+            }
+        }
+
+        int quads = 0;
+        chunk.textures.clear();
+        chunk.spanEnds.clear();
+
+        for (Texture texture : chunkTextures) {
+
+            for (int row = CHUNK_SIZE - 1; row >= 0; row--) {
+
+                for (int col = 0; col < CHUNK_SIZE; col++) {
+
+                    Cell cell = layer.getCell(firstCol + col, firstRow + row);
+
+                    if (cell == null || cell.getTile() == null || cell.getTile() instanceof AnimatedTiledMapTile
+                        || cell.getTile().getTextureRegion().getTexture() != texture)
+                        continue;
+
+                    writeQuad(chunkVertices, quads++ * NUM_VERTICES, cell,
+                        (firstCol + col) * layerTileWidth + layerOffsetX,
+                        (firstRow + row) * layerTileHeight + layerOffsetY, color);
+                }
+            }
+
+            chunk.textures.add(texture);
+            chunk.spanEnds.add(quads);
+        }
+
+        chunk.upload(chunkVertices, quads);
+    }
+
+    /** Writes the four vertices of a cell the same way OrthogonalTiledMapRenderer does, flips and rotations included. */
+    private void writeQuad(float[] vertices, int offset, Cell cell, float x, float y, float color) {
+
+        TiledMapTile tile = cell.getTile();
+        TextureRegion region = tile.getTextureRegion();
+
+        float x1 = x + tile.getOffsetX() * unitScale;
+        float y1 = y + tile.getOffsetY() * unitScale;
+        float x2 = x1 + region.getRegionWidth() * unitScale;
+        float y2 = y1 + region.getRegionHeight() * unitScale;
+
+        float u1 = region.getU();
+        float v1 = region.getV2();
+        float u2 = region.getU2();
+        float v2 = region.getV();
+
+        u[0] = u1;
+        u[1] = u1;
+        u[2] = u2;
+        u[3] = u2;
+        v[0] = v1;
+        v[1] = v2;
+        v[2] = v2;
+        v[3] = v1;
+
+        if (cell.getFlipHorizontally()) {
+
+            swap(u, 0, 2);
+            swap(u, 1, 3);
+        }
+
+        if (cell.getFlipVertically()) {
+
+            swap(v, 0, 2);
+            swap(v, 1, 3);
+        }
+
+        switch (cell.getRotation()) {
+
+            case Cell.ROTATE_90:
+                rotate(u, 1);
+                rotate(v, 1);
+                break;
+
+            case Cell.ROTATE_180:
+                rotate(u, 2);
+                rotate(v, 2);
+                break;
+
+            case Cell.ROTATE_270:
+                rotate(u, 3);
+                rotate(v, 3);
+                break;
+        }
+
+        for (int corner = 0; corner < 4; corner++) {
+
+            int vertex = offset + corner * 5;
+
+            vertices[vertex] = corner < 2 ? x1 : x2;
+            vertices[vertex + 1] = corner == 0 || corner == 3 ? y1 : y2;
+            vertices[vertex + 2] = color;
+            vertices[vertex + 3] = u[corner];
+            vertices[vertex + 4] = v[corner];
+        }
+    }
+
+    private static void swap(float[] values, int first, int second) {
+
+        float temp = values[first];
+        values[first] = values[second];
+        values[second] = temp;
+    }
+
+    /** Corner i takes the value of corner i + steps, as the rotations of the batch renderer do. */
+    private static void rotate(float[] values, int steps) {
+
+        float v0 = values[steps % 4];
+        float v1 = values[(1 + steps) % 4];
+        float v2 = values[(2 + steps) % 4];
+        float v3 = values[(3 + steps) % 4];
+
+        values[0] = v0;
+        values[1] = v1;
+        values[2] = v2;
+        values[3] = v3;
+    }
+
+    /** Only the chunks of the changed layer are rebuilt, the other layers keep their buffers. */
+    @Override
+    public void onTilesChanged(TiledMapTileLayer layer, int x, int y, int width, int height) {
+
+        LayerCache cache = layerCaches.get(layer);
+
+        if (cache != null)
+            cache.invalidate(x, y, width, height);
+    }
+
+    private void evictUnused() {
+
+        for (int i = liveChunks.size - 1; i >= 0; i--) {
+
+            ChunkCache chunk = liveChunks.get(i);
+
+            if (frame - chunk.lastUsed > FRAMES_BEFORE_EVICTION) {
+
+                chunk.layer.remove(chunk);
+                chunk.dispose();
+                liveChunks.removeIndex(i);
+            }
+        }
+    }
+
+    @Override
+    public void dispose() {
+
+        super.dispose();
+
+        for (ChunkCache chunk : liveChunks)
+            chunk.dispose();
+
+        liveChunks.clear();
+        layerCaches.clear();
+    }
+
+    private static final class LayerCache {
+
+        final int chunksX;
+        final int chunksY;
+        final ChunkCache[] chunks;
+        float color;
+
+        LayerCache(TiledMapTileLayer layer) {
+
+            chunksX = (layer.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            chunksY = (layer.getHeight() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            chunks = new ChunkCache[chunksX * chunksY];
+        }
+
+        ChunkCache get(int chunkX, int chunkY) {return chunks[chunkY * chunksX + chunkX];}
+
+        ChunkCache create(int chunkX, int chunkY) {return chunks[chunkY * chunksX + chunkX] = new ChunkCache(this, chunkX, chunkY);}
+
+        void remove(ChunkCache chunk) {chunks[chunk.chunkY * chunksX + chunk.chunkX] = null;}
+
+        void invalidate(int x, int y, int width, int height) {
+
+            int lastX = Math.min(chunksX - 1, (x + width - 1) / CHUNK_SIZE);
+            int lastY = Math.min(chunksY - 1, (y + height - 1) / CHUNK_SIZE);
+
+            for (int chunkY = Math.max(0, y / CHUNK_SIZE); chunkY <= lastY; chunkY++) {
+
+                for (int chunkX = Math.max(0, x / CHUNK_SIZE); chunkX <= lastX; chunkX++) {
+
+                    ChunkCache chunk = get(chunkX, chunkY);
+
+                    if (chunk != null)
+                        chunk.isDirty = true;
+                }
+            }
+        }
+
+        void invalidateAll() {
+
+            for (ChunkCache chunk : chunks) {
+
+                if (chunk != null)
+                    chunk.isDirty = true;
+            }
+        }
+    }
+
+    private static final class ChunkCache {
+
+        final LayerCache layer;
+        final int chunkX;
+        final int chunkY;
+        final Array<Texture> textures = new Array<>(false, 1);
+        // quad count at the end of each texture span
+        final IntArray spanEnds = new IntArray(false, 1);
+        final IntArray animatedCells = new IntArray(false, 0);
+        Mesh mesh;
+        int quadCapacity;
+        boolean isDirty = true;
+        long lastUsed;
+
+        ChunkCache(LayerCache layer, int chunkX, int chunkY) {
+
+            this.layer = layer;
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+        }
+
+        void upload(float[] vertices, int quads) {
+
+            if (quads == 0)
+                return;
+
+            // blocks are mostly removed, so a rebuild usually fits in the buffer it already has
+            if (quads > quadCapacity) {
+
+                if (mesh != null)
+                    mesh.dispose();
+
+                mesh = new Mesh(true, quads * 4, quads * 6,
+                    new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+                    new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+                    new VertexAttribute(Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
+
+                short[] indices = new short[quads * 6];
+
+                for (int i = 0, vertex = 0; i < indices.length; i += 6, vertex += 4) {
+
+                    indices[i] = (short) vertex;
+                    indices[i + 1] = (short) (vertex + 1);
+                    indices[i + 2] = (short) (vertex + 2);
+                    indices[i + 3] = (short) (vertex + 2);
+                    indices[i + 4] = (short) (vertex + 3);
+                    indices[i + 5] = (short) vertex;
+                }
+
+                mesh.setIndices(indices);
+                quadCapacity = quads;
+            }
+
+            mesh.setVertices(vertices, 0, quads * NUM_VERTICES);
+        }
+
+        /** Draws with the shader of the batch, which is bound with the camera matrix while the map renders. */
+        void draw(ShaderProgram shader) {
+
+            int start = 0;
+
+            for (int i = 0; i < textures.size; i++) {
+
+                int end = spanEnds.get(i);
+
+                if (end > start) {
+
+                    textures.get(i).bind();
+                    mesh.render(shader, GL20.GL_TRIANGLES, start * 6, (end - start) * 6);
+                }
+
+                start = end;
+            }
+        }
+
+        void dispose() {
+
+            if (mesh != null)
+                mesh.dispose();
+
+            mesh = null;
+            quadCapacity = 0;
+        }
+    }
+}
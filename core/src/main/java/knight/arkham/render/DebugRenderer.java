@@ -0,0 +1,178 @@
+package knight.arkham.render;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.math.MathUtils;
+import knight.arkham.Koala;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.entity.EntityStore;
+import knight.arkham.level.StreamingTileLayer;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.Simulation;
+
+/** Draws the debug view of a {@link GameWorld}: the koala box and the layers switched on with {@link #setLayers}.
+ * Everything only walks the tiles the camera sees and goes out in a single line pass of one ShapeRenderer, so
+ * the cost follows the screen size instead of the map size. */
+public class DebugRenderer {
+
+    /** Solid tiles of the collision grid. */
+    public static final int WALLS = 1;
+    /** Velocity of the koala and the actors, as the distance they cover in a tenth of a second. */
+    public static final int VELOCITIES = 1 << 1;
+    /** The column and row the koala's next collision sweeps check. */
+    public static final int SWEEPS = 1 << 2;
+    /** Broadphase cells the visible actors are listed in. */
+    public static final int HASH_CELLS = 1 << 3;
+    /** Borders of the render cache chunks and of the streamed level chunks. */
+    public static final int CHUNKS = 1 << 4;
+    public static final int ALL = WALLS | VELOCITIES | SWEEPS | HASH_CELLS | CHUNKS;
+    private static final float VELOCITY_SCALE = 0.1f;
+    private static final Color HASH_CELL_COLOR = new Color(0.6f, 0, 1, 1);
+    private final ShapeRenderer shapes = new ShapeRenderer();
+    private final VisibleTileRange range = new VisibleTileRange();
+    private int layers = ALL;
+
+    public void setLayers(int layers) {this.layers = layers;}
+
+    public int getLayers() {return layers;}
+
+    public void draw(OrthographicCamera camera, GameWorld world) {
+
+        CollisionGrid grid = world.getGrid();
+        Koala koala = world.getKoala();
+
+        range.set(camera, grid.getWidth(), grid.getHeight(), 0);
+
+        shapes.setProjectionMatrix(camera.combined);
+        shapes.begin(ShapeType.Line);
+
+        if ((layers & CHUNKS) != 0)
+            drawChunks(world);
+
+        if ((layers & WALLS) != 0 && !range.isEmpty())
+            drawWalls(grid);
+
+        if ((layers & HASH_CELLS) != 0)
+            drawHashCells(world);
+
+        if ((layers & SWEEPS) != 0)
+            drawSweeps(koala);
+
+        shapes.setColor(Color.RED);
+        shapes.rect(koala.position.x, koala.position.y, koala.width, koala.height);
+
+        if ((layers & VELOCITIES) != 0)
+            drawVelocities(world);
+
+        shapes.end();
+    }
+
+    private void drawWalls(CollisionGrid grid) {
+
+        shapes.setColor(Color.YELLOW);
+
+        for (int y = range.firstY; y <= range.lastY; y++) {
+
+            for (int x = range.firstX; x <= range.lastX; x++) {
+
+                if (grid.isSolid(x, y))
+                    shapes.rect(x, y, 1, 1);
+            }
+        }
+    }
+
+    private void drawChunks(GameWorld world) {
+
+        int bottom = range.firstY;
+        int top = range.lastY + 1;
+
+        shapes.setColor(Color.GRAY);
+        drawColumnBorders(CachedTiledMapRenderer.CHUNK_SIZE, bottom, top);
+
+        for (int y = MathUtils.ceil(bottom / (float) CachedTiledMapRenderer.CHUNK_SIZE) * CachedTiledMapRenderer.CHUNK_SIZE;
+             y <= top; y += CachedTiledMapRenderer.CHUNK_SIZE)
+            shapes.line(range.firstX, y, range.lastX + 1, y);
+
+        if (world.getWalls() instanceof StreamingTileLayer) {
+
+            shapes.setColor(Color.ORANGE);
+            drawColumnBorders(((StreamingTileLayer) world.getWalls()).getChunkWidth(), bottom, top);
+        }
+    }
+
+    private void drawColumnBorders(int spacing, int bottom, int top) {
+
+        for (int x = MathUtils.ceil(range.firstX / (float) spacing) * spacing; x <= range.lastX + 1; x += spacing)
+            shapes.line(x, bottom, x, top);
+    }
+
+    private void drawHashCells(GameWorld world) {
+
+        EntityStore entities = world.getEntities();
+        float cellSize = world.getSpatialHash().getCellSize();
+
+        shapes.setColor(HASH_CELL_COLOR);
+
+        for (int i = 0; i < entities.count; i++) {
+
+            if (!isVisible(entities, i))
+                continue;
+
+            int endX = MathUtils.floor((entities.x[i] + entities.width[i]) / cellSize);
+            int endY = MathUtils.floor((entities.y[i] + entities.height[i]) / cellSize);
+
+            for (int cellY = MathUtils.floor(entities.y[i] / cellSize); cellY <= endY; cellY++) {
+
+                for (int cellX = MathUtils.floor(entities.x[i] / cellSize); cellX <= endX; cellX++)
+                    shapes.rect(cellX * cellSize, cellY * cellSize, cellSize, cellSize);
+            }
+        }
+    }
+
+    private void drawSweeps(Koala koala) {
+
+        // the distance the koala moves in the next tick, before gravity
+        float dx = koala.velocity.x * Simulation.STEP;
+        float dy = koala.velocity.y * Simulation.STEP;
+
+        int column = CollisionGrid.getSweepColumn(koala.position.x, koala.width, dx);
+        int row = CollisionGrid.getSweepRow(koala.position.y, koala.height, dy);
+        int firstRow = (int) koala.position.y;
+        int firstColumn = (int) koala.position.x;
+
+        shapes.setColor(Color.CYAN);
+        shapes.rect(column, firstRow, 1, (int) (koala.position.y + koala.height) - firstRow + 1);
+        shapes.rect(firstColumn, row, (int) (koala.position.x + koala.width) - firstColumn + 1, 1);
+    }
+
+    private void drawVelocities(GameWorld world) {
+
+        Koala koala = world.getKoala();
+        EntityStore entities = world.getEntities();
+
+        shapes.setColor(Color.GREEN);
+        drawVelocity(koala.position.x + koala.width / 2, koala.position.y + koala.height / 2, koala.velocity.x,
+            koala.velocity.y);
+
+        for (int i = 0; i < entities.count; i++) {
+
+            if (isVisible(entities, i))
+                drawVelocity(entities.x[i] + entities.width[i] / 2, entities.y[i] + entities.height[i] / 2,
+                    entities.velocityX[i], entities.velocityY[i]);
+        }
+    }
+
+    private void drawVelocity(float x, float y, float velocityX, float velocityY) {
+        shapes.line(x, y, x + velocityX * VELOCITY_SCALE, y + velocityY * VELOCITY_SCALE);
+    }
+
+    private boolean isVisible(EntityStore entities, int index) {
+
+        return entities.x[index] + entities.width[index] >= range.firstX && entities.x[index] < range.lastX + 1
+            && entities.y[index] + entities.height[index] >= range.firstY && entities.y[index] < range.lastY + 1;
+    }
+
+    public void dispose() {shapes.dispose();}
+}
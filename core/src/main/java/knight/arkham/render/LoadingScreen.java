@@ -0,0 +1,61 @@
+package knight.arkham.render;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ScreenUtils;
+
+/** Shown while the assets load: a progress bar in the middle of the screen with the percentage above it. It only
+ * uses the built in font, so it is up before anything has been loaded. */
+public class LoadingScreen implements Disposable {
+
+    private static final float BAR_WIDTH = 0.5f;
+    private static final float BAR_HEIGHT = 12;
+    private final SpriteBatch batch = new SpriteBatch();
+    private final ShapeRenderer shapes = new ShapeRenderer();
+    private final BitmapFont font = new BitmapFont();
+    private final Matrix4 projection = new Matrix4();
+    private final StringBuilder text = new StringBuilder(16);
+
+    /** Draws the screen for a progress between 0 and 1. */
+    public void draw(float progress) {
+
+        float width = Gdx.graphics.getWidth();
+        float height = Gdx.graphics.getHeight();
+        float barWidth = width * BAR_WIDTH;
+        float x = (width - barWidth) / 2;
+        float y = (height - BAR_HEIGHT) / 2;
+
+        ScreenUtils.clear(0, 0, 0, 1);
+        projection.setToOrtho2D(0, 0, width, height);
+
+        shapes.setProjectionMatrix(projection);
+        shapes.begin(ShapeType.Filled);
+        shapes.setColor(Color.DARK_GRAY);
+        shapes.rect(x, y, barWidth, BAR_HEIGHT);
+        shapes.setColor(Color.WHITE);
+        shapes.rect(x, y, barWidth * progress, BAR_HEIGHT);
+        shapes.end();
+
+        text.setLength(0);
+        text.append("Loading ").append((int)(progress * 100)).append('%');
+
+        batch.setProjectionMatrix(projection);
+        batch.begin();
+        font.draw(batch, text, x, y + BAR_HEIGHT + font.getLineHeight());
+        batch.end();
+    }
+
+    @Override
+    public void dispose() {
+
+        batch.dispose();
+        shapes.dispose();
+        font.dispose();
+    }
+}
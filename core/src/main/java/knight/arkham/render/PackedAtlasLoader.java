@@ -0,0 +1,56 @@
+package knight.arkham.render;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/** Loads the atlas {@link AtlasPacker} builds through an AssetManager, registered for the {@link #SUFFIX} suffix.
+ * The images are decoded and packed into pixmaps on the loader thread, only the upload of the pages is left for the
+ * render thread. The asset name is only a key, the images come from the parameters. */
+public class PackedAtlasLoader extends AsynchronousAssetLoader<TextureAtlas, PackedAtlasLoader.Parameters> {
+
+    public static final String SUFFIX = ".packed";
+    private PixmapPacker packer;
+
+    public PackedAtlasLoader(FileHandleResolver resolver) {super(resolver);}
+
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, Parameters parameter) {return null;}
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+
+        if (parameter == null)
+            throw new GdxRuntimeException("The images of " + fileName + " are missing");
+
+        FileHandle[] images = new FileHandle[parameter.images.length];
+
+        for (int i = 0; i < images.length; i++)
+            images[i] = resolve(parameter.images[i]);
+
+        packer = AtlasPacker.packPixmaps(images);
+    }
+
+    @Override
+    public TextureAtlas loadSync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+
+        TextureAtlas atlas = AtlasPacker.upload(packer);
+        packer = null;
+
+        return atlas;
+    }
+
+    public static class Parameters extends AssetLoaderParameters<TextureAtlas> {
+
+        public final String[] images;
+
+        public Parameters(String... images) {this.images = images;}
+    }
+}
@@ -0,0 +1,118 @@
+package knight.arkham.render;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import java.util.Arrays;
+
+/** Collects the sprites of a frame and draws them sorted by layer and then texture, inside the batch pass of the
+ * map renderer. A layer is the index of the map layer the sprite is drawn over, sprites in {@link #TOP_LAYER} go
+ * over the whole map. Sprites with the same layer and texture keep the order they were queued in. A
+ * {@link BatchDrawable} is queued and sorted like a sprite of its texture. */
+public class RenderQueue {
+
+    public static final int TOP_LAYER = 0x7FFF;
+    private static final int MAX_SPRITES = 1 << 20;
+    private static final long INDEX_MASK = MAX_SPRITES - 1;
+    private final ObjectIntMap<Texture> textureIds = new ObjectIntMap<>();
+    private final Array<TextureRegion> regions = new Array<>(false, 64);
+    // null for sprites
+    private final Array<BatchDrawable> drawables = new Array<>(false, 64);
+    // layer, texture id and queue index of every sprite packed into one long, sorted as primitives
+    private long[] keys = new long[64];
+    private float[] bounds = new float[64 * 4];
+    private int count;
+    private int submitted;
+    private boolean isSorted;
+
+    /** Width may be negative to draw the region mirrored. */
+    public void add(TextureRegion region, float x, float y, float width, float height, int layer) {
+
+        int index = add(region.getTexture(), layer);
+
+        bounds[index * 4] = x;
+        bounds[index * 4 + 1] = y;
+        bounds[index * 4 + 2] = width;
+        bounds[index * 4 + 3] = height;
+
+        regions.add(region);
+        drawables.add(null);
+    }
+
+    public void add(BatchDrawable drawable, int layer) {
+
+        add(drawable.getTexture(), layer);
+
+        regions.add(null);
+        drawables.add(drawable);
+    }
+
+    /** Adds the sort key of the next sprite and returns its index. */
+    private int add(Texture texture, int layer) {
+
+        if (count == MAX_SPRITES)
+            throw new GdxRuntimeException("More than " + MAX_SPRITES + " sprites queued in one frame");
+
+        if (count == keys.length) {
+
+            keys = Arrays.copyOf(keys, count * 2);
+            bounds = Arrays.copyOf(bounds, count * 2 * 4);
+        }
+
+        int textureId = textureIds.get(texture, -1);
+
+        if (textureId == -1) {
+
+            textureId = textureIds.size;
+            textureIds.put(texture, textureId);
+        }
+
+        int clampedLayer = Math.max(0, Math.min(TOP_LAYER, layer));
+
+        keys[count] = (long) clampedLayer << 48 | (long) textureId << 20 | count;
+        isSorted = false;
+
+        return count++;
+    }
+
+    public int size() {return count;}
+
+    /** Draws the queued sprites up to the given layer that weren't drawn yet, the batch must be drawing. */
+    public void submit(Batch batch, int lastLayer) {
+
+        if (!isSorted) {
+
+            Arrays.sort(keys, 0, count);
+            isSorted = true;
+        }
+
+        while (submitted < count && (int) (keys[submitted] >>> 48) <= lastLayer) {
+
+            int index = (int) (keys[submitted] & INDEX_MASK);
+
+            BatchDrawable drawable = drawables.get(index);
+
+            if (drawable != null)
+                drawable.draw(batch);
+            else
+                batch.draw(regions.get(index), bounds[index * 4], bounds[index * 4 + 1], bounds[index * 4 + 2],
+                    bounds[index * 4 + 3]);
+
+            submitted++;
+        }
+    }
+
+    /** Drops every sprite, queued frames start with a clear. */
+    public void clear() {
+
+        regions.clear();
+        drawables.clear();
+        count = 0;
+        submitted = 0;
+        isSorted = true;
+    }
+}
@@ -0,0 +1,30 @@
+package knight.arkham.render;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.math.MathUtils;
+
+/** The tiles an orthographic camera sees, in a map of one world unit per tile, clamped to the map. Walking this
+ * range costs as much as the screen is big, however large the map. */
+public class VisibleTileRange {
+
+    public int firstX;
+    public int firstY;
+    public int lastX;
+    public int lastY;
+
+    /** @param margin tiles added on every side, for things drawn a little outside of their tile */
+    public VisibleTileRange set(OrthographicCamera camera, int width, int height, int margin) {
+
+        float halfWidth = camera.viewportWidth * camera.zoom / 2;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2;
+
+        firstX = Math.max(0, MathUtils.floor(camera.position.x - halfWidth) - margin);
+        firstY = Math.max(0, MathUtils.floor(camera.position.y - halfHeight) - margin);
+        lastX = Math.min(width - 1, MathUtils.floor(camera.position.x + halfWidth) + margin);
+        lastY = Math.min(height - 1, MathUtils.floor(camera.position.y + halfHeight) + margin);
+
+        return this;
+    }
+
+    public boolean isEmpty() {return firstX > lastX || firstY > lastY;}
+}
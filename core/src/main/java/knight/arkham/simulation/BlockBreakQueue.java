@@ -0,0 +1,48 @@
+package knight.arkham.simulation;
+
+import com.badlogic.gdx.utils.IntArray;
+import knight.arkham.collision.CollisionGrid;
+
+/** Blocks broken by actors during a step, as packed grid indices. Actors only record hits here, the blocks are
+ * destroyed at the end of the step in ascending index order, so every actor sees the same walls no matter in which
+ * order or on which thread the actors were stepped. */
+public class BlockBreakQueue {
+
+    private final IntArray tiles = new IntArray(false, 16);
+
+    public void add(int tile) {tiles.add(tile);}
+
+    /** Moves every tile of the other queue into this one. */
+    public void drain(BlockBreakQueue other) {
+
+        tiles.addAll(other.tiles);
+        other.tiles.clear();
+    }
+
+    public boolean isEmpty() {return tiles.isEmpty();}
+
+    public void apply(GameWorld world) {
+
+        if (tiles.isEmpty())
+            return;
+
+        tiles.sort();
+
+        CollisionGrid grid = world.getGrid();
+        int previous = -1;
+
+        for (int i = 0; i < tiles.size; i++) {
+
+            int tile = tiles.get(i);
+
+            // two actors can hit the same block in one step
+            if (tile == previous)
+                continue;
+
+            world.destroyBlock(grid.getTileX(tile), grid.getTileY(tile));
+            previous = tile;
+        }
+
+        tiles.clear();
+    }
+}
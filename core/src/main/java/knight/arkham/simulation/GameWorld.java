@@ -0,0 +1,269 @@
+package knight.arkham.simulation;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import knight.arkham.Koala;
+import knight.arkham.Koala.PlayerState;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.entity.EntityPhysics;
+import knight.arkham.entity.EntityStore;
+import knight.arkham.entity.OverlapListener;
+import knight.arkham.entity.ParallelEntityStepper;
+import knight.arkham.entity.SpatialHash;
+import knight.arkham.events.EventBus;
+import knight.arkham.events.EventBus.Side;
+import knight.arkham.level.TileChangeListener;
+import knight.arkham.profiling.FrameProfiler;
+import knight.arkham.profiling.ProfilerSection;
+
+/** The koala, the other actors and the "walls" layer they collide with. It only depends on plain map data, so it can be stepped
+ * without a window, textures or {@code Gdx.input}. */
+public class GameWorld {
+
+    public static final float GRAVITY = -2.5f;
+    // applied to the koala's x velocity every tick, so we don't walk infinitely once a key was pressed
+    public static final float DAMPING = 0.87f;
+    // actors can break a lot of blocks in one tick
+    private static final int EVENT_CAPACITY = 1024;
+    private final TiledMapTileLayer walls;
+    private final CollisionGrid grid;
+    private final Koala koala;
+    private final EntityStore entities = new EntityStore(64);
+    private final SpatialHash spatialHash = new SpatialHash(2, 1024);
+    private final BlockBreakQueue blockBreaks = new BlockBreakQueue();
+    private final EventBus events = new EventBus(EVENT_CAPACITY);
+    private OverlapListener overlapListener;
+    private ParallelEntityStepper parallelStepper;
+    private TileChangeListener tileChangeListener;
+    private FrameProfiler profiler;
+    private int blockHash;
+    // every block destroyed since the level was loaded, in order, with the cell it had
+    private final IntArray destroyedBlocks = new IntArray();
+    private final Array<Cell> destroyedCells = new Array<>();
+
+    public GameWorld(TiledMapTileLayer walls) {
+        this(walls, new Koala());
+    }
+
+    public GameWorld(TiledMapTileLayer walls, Koala koala) {
+        this(walls, CollisionGrid.fromLayer(walls), koala);
+    }
+
+    /** For levels that come with their collision grid, like chunked levels whose walls are not all resident.
+     * @param walls null for worlds nobody draws, like on a server or a host, only the grid is kept then */
+    public GameWorld(TiledMapTileLayer walls, CollisionGrid grid, Koala koala) {
+
+        this.walls = walls;
+        this.grid = grid;
+        this.koala = koala;
+    }
+
+    public Koala getKoala() {return koala;}
+
+    public TiledMapTileLayer getWalls() {return walls;}
+
+    public CollisionGrid getGrid() {return grid;}
+
+    public EntityStore getEntities() {return entities;}
+
+    public SpatialHash getSpatialHash() {return spatialHash;}
+
+    /** Collisions, broken blocks, jumps and landings of every tick, delivered to the subscribers at its end. The
+     * world applies its own rules itself, subscribers react to them, so they can't change the outcome of a tick. */
+    public EventBus getEvents() {return events;}
+
+    /** Number of blocks destroyed since the level was loaded, the state of the tiles is the pristine level minus
+     * these blocks. */
+    public int getDestroyedBlockCount() {return destroyedBlocks.size;}
+
+    /** The i-th destroyed block as a packed index, {@code y * width + x}. */
+    public int getDestroyedBlock(int index) {return destroyedBlocks.get(index);}
+
+    /** Hash of the blocks destroyed so far, the same whatever order they were destroyed in. */
+    public int getBlockHash() {return blockHash;}
+
+    /** Told about every block destroyed or restored in the walls layer, so the renderer can refresh the tiles it
+     * cached. */
+    public void setTileChangeListener(TileChangeListener tileChangeListener) {this.tileChangeListener = tileChangeListener;}
+
+    /** Times the collision, actor and broadphase parts of every step when set. */
+    public void setProfiler(FrameProfiler profiler) {this.profiler = profiler;}
+
+    /** Steps the actors on a thread pool when set, the results are the same as stepping them on this thread. */
+    public void setParallelStepper(ParallelEntityStepper parallelStepper) {this.parallelStepper = parallelStepper;}
+
+    /** Listener for actor vs actor overlaps, the broadphase is skipped while there is none. */
+    public void setOverlapListener(OverlapListener overlapListener) {this.overlapListener = overlapListener;}
+
+    /** Advances the world by one tick, process input, collision detection and position update. */
+    public void step(float deltaTime, InputState input) {
+
+        koala.previousPosition.set(koala.position);
+
+        PlayerState previousState = koala.currentState;
+        boolean wasGrounded = koala.isGrounded;
+
+        koala.update(deltaTime, input);
+
+        if (wasGrounded && !koala.isGrounded)
+            events.jumped();
+
+        if (koala.currentState != previousState)
+            events.stateChanged(previousState, koala.currentState);
+
+        // apply gravity if we are falling
+        koala.velocity.add(0, GRAVITY);
+
+        // multiply by delta time, so we know how far we go
+        // in this frame
+        koala.velocity.scl(deltaTime);
+
+        if (profiler != null)
+            profiler.begin(ProfilerSection.COLLISION);
+
+        // perform collision detection & response, on each axis, separately
+        // if the koala is moving right, check the tiles to the right of it's
+        // right bounding box edge, otherwise check the ones to the left
+        if (grid.sweepX(koala.position.x, koala.position.y, koala.width, koala.height, koala.velocity.x)) {
+
+            events.collision(koala.velocity.x > 0 ? Side.RIGHT : Side.LEFT, CollisionGrid.getSweepColumn(
+                koala.position.x, koala.width, koala.velocity.x), (int) koala.position.y);
+
+            koala.velocity.x = 0;
+        }
+
+        // if the koala is moving upwards, check the tiles to the top of its
+        // top bounding box edge, otherwise check the ones to the bottom
+        int tile = grid.sweepY(koala.position.x, koala.position.y, koala.width, koala.height, koala.velocity.y);
+
+        if (tile != -1) {
+
+            int tileX = grid.getTileX(tile);
+            int tileY = grid.getTileY(tile);
+
+            // we actually reset the koala y-position here,
+            // so it is just below/above the tile we collided with
+            // this removes bouncing :)
+            if (koala.velocity.y > 0) {
+                events.collision(Side.TOP, tileX, tileY);
+                koala.position.y = tileY - koala.height;
+                // we hit a block jumping upwards, let's destroy it!
+                destroyBlock(tileX, tileY);
+            }
+            else {
+
+                events.collision(Side.BOTTOM, tileX, tileY);
+
+                if (!koala.isGrounded)
+                    events.landed(tileX, tileY);
+
+                koala.position.y = tileY + 1;
+                // if we hit the ground, mark us as grounded, so we can jump
+                koala.isGrounded = true;
+            }
+
+            koala.velocity.y = 0;
+        }
+
+        if (profiler != null)
+            profiler.end(ProfilerSection.COLLISION);
+
+        // unscale the velocity by the inverse delta time and set
+        // the latest position
+        koala.position.add(koala.velocity);
+        koala.velocity.scl(1 / deltaTime);
+
+        // Apply damping to the velocity on the x-axis
+        koala.velocity.x *= DAMPING;
+
+        if (profiler != null)
+            profiler.begin(ProfilerSection.ACTORS);
+
+        if (parallelStepper != null)
+            parallelStepper.step(entities, grid, deltaTime, blockBreaks);
+        else
+            EntityPhysics.step(entities, grid, deltaTime, blockBreaks);
+
+        blockBreaks.apply(this);
+
+        if (profiler != null)
+            profiler.end(ProfilerSection.ACTORS);
+
+        if (overlapListener != null) {
+
+            if (profiler != null)
+                profiler.begin(ProfilerSection.BROADPHASE);
+
+            spatialHash.build(entities);
+            spatialHash.findOverlaps(entities, overlapListener);
+
+            if (profiler != null)
+                profiler.end(ProfilerSection.BROADPHASE);
+        }
+
+        events.dispatch();
+    }
+
+    /** Removes a block from both the collision grid and the walls layer, so they never go out of sync. */
+    public void destroyBlock(int x, int y) {
+
+        // the break queue may hold a block more than once, the first one took it
+        if (!grid.isSolid(x, y))
+            return;
+
+        blockHash ^= hashBlock(x, y);
+        destroyedBlocks.add(y * grid.getWidth() + x);
+        destroyedCells.add(walls == null ? null : walls.getCell(x, y));
+
+        events.blockBroken(x, y, destroyedCells.peek());
+
+        grid.setSolid(x, y, false);
+
+        if (walls != null)
+            walls.setCell(x, y, null);
+
+        if (tileChangeListener != null)
+            tileChangeListener.onTilesChanged(walls, x, y, 1, 1);
+    }
+
+    /** Takes the blocks as they are now as the level, the blocks destroyed so far are forgotten, like after the
+     * level was reloaded. Snapshots taken before don't fit the world anymore. */
+    public void forgetDestroyedBlocks() {
+
+        destroyedBlocks.clear();
+        destroyedCells.clear();
+        blockHash = 0;
+    }
+
+    /** Puts the last destroyed block back with its cell, snapshots use it to go back in time. A block destroyed
+     * while its streamed chunk wasn't loaded comes back solid and is drawn again once its chunk is reloaded. */
+    public void restoreLastBlock() {
+
+        int block = destroyedBlocks.pop();
+        Cell cell = destroyedCells.pop();
+        int x = grid.getTileX(block);
+        int y = grid.getTileY(block);
+
+        blockHash ^= hashBlock(x, y);
+        grid.setSolid(x, y, true);
+        if (walls != null)
+            walls.setCell(x, y, cell);
+
+        if (tileChangeListener != null)
+            tileChangeListener.onTilesChanged(walls, x, y, 1, 1);
+    }
+
+    private static int hashBlock(int x, int y) {
+
+        // murmur3 finalizer, so xor-ing the blocks together doesn't cancel out neighbours
+        int hash = x * 0x9E3779B9 + y;
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+
+        return hash ^ hash >>> 16;
+    }
+}
@@ -0,0 +1,134 @@
+package knight.arkham.simulation;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/** The buttons of every tick of a run and the {@link StateChecksum} after each tick. Held buttons change rarely,
+ * so the file stores the buttons as runs of equal ticks, a few bytes per second of play plus the checksums:
+ * <ul>
+ * <li>magic, version and tick count</li>
+ * <li>the runs, a buttons byte and the run length as a variable length int</li>
+ * <li>one int checksum per tick</li>
+ * </ul> */
+public class InputLog {
+
+    public static final int MAGIC = 0x4B52504C;
+    public static final int VERSION = 1;
+    private final ByteArray buttons;
+    private final IntArray checksums;
+
+    public InputLog() {this(new ByteArray(1024), new IntArray(1024));}
+
+    private InputLog(ByteArray buttons, IntArray checksums) {
+
+        this.buttons = buttons;
+        this.checksums = checksums;
+    }
+
+    public void add(int tickButtons, int checksum) {
+
+        buttons.add((byte) tickButtons);
+        checksums.add(checksum);
+    }
+
+    public int getTickCount() {return buttons.size;}
+
+    public int getButtons(int tick) {return buttons.get(tick) & 0xFF;}
+
+    public int getChecksum(int tick) {return checksums.get(tick);}
+
+    public void write(File file) {
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(buttons.size);
+
+            for (int tick = 0; tick < buttons.size; ) {
+
+                byte value = buttons.get(tick);
+                int run = 1;
+
+                while (tick + run < buttons.size && buttons.get(tick + run) == value)
+                    run++;
+
+                output.writeByte(value);
+                writeVarInt(output, run);
+
+                tick += run;
+            }
+
+            for (int tick = 0; tick < checksums.size; tick++)
+                output.writeInt(checksums.get(tick));
+        }
+        catch (IOException exception) {
+            throw new GdxRuntimeException("Couldn't write input log: " + file, exception);
+        }
+    }
+
+    public static InputLog read(FileHandle file) {
+
+        ByteBuffer buffer = ByteBuffer.wrap(file.readBytes());
+
+        if (buffer.getInt() != MAGIC)
+            throw new GdxRuntimeException("Not an input log: " + file);
+
+        int version = buffer.getInt();
+
+        if (version != VERSION)
+            throw new GdxRuntimeException("Unsupported input log version: " + version);
+
+        int ticks = buffer.getInt();
+        ByteArray buttons = new ByteArray(ticks);
+        IntArray checksums = new IntArray(ticks);
+
+        while (buttons.size < ticks) {
+
+            byte value = buffer.get();
+            int run = readVarInt(buffer);
+
+            for (int i = 0; i < run; i++)
+                buttons.add(value);
+        }
+
+        for (int tick = 0; tick < ticks; tick++)
+            checksums.add(buffer.getInt());
+
+        return new InputLog(buttons, checksums);
+    }
+
+    private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+
+        while ((value & ~0x7F) != 0) {
+
+            output.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        output.writeByte(value);
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+
+        int value = 0;
+
+        for (int shift = 0; ; shift += 7) {
+
+            byte current = buffer.get();
+            value |= (current & 0x7F) << shift;
+
+            if ((current & 0x80) == 0)
+                return value;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package knight.arkham.simulation;
+
+/** Feeds the ticks of an {@link InputLog} back into a simulation started from the same level, and compares the
+ * state after every tick with the recorded checksum. Once the log runs out the input is cleared. */
+public class InputPlayer implements TickListener {
+
+    private final InputLog log;
+    private int position;
+    private long divergedTick = -1;
+
+    public InputPlayer(InputLog log) {this.log = log;}
+
+    @Override
+    public void beforeTick(long tick, InputState input) {
+
+        if (isFinished())
+            input.clear();
+        else
+            input.setButtons(log.getButtons(position));
+    }
+
+    @Override
+    public void afterTick(long tick, InputState input, GameWorld world) {
+
+        if (isFinished())
+            return;
+
+        if (divergedTick == -1 && StateChecksum.compute(world) != log.getChecksum(position))
+            divergedTick = tick;
+
+        position++;
+    }
+
+    public boolean isFinished() {return position >= log.getTickCount();}
+
+    /** The first tick whose state didn't match the recording, -1 while they all did. */
+    public long getDivergedTick() {return divergedTick;}
+
+    public int getPosition() {return position;}
+}
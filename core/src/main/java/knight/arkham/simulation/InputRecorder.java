@@ -0,0 +1,15 @@
+package knight.arkham.simulation;
+
+/** Adds the input and the resulting checksum of every tick to an {@link InputLog}. */
+public class InputRecorder implements TickListener {
+
+    private final InputLog log = new InputLog();
+
+    public InputLog getLog() {return log;}
+
+    @Override
+    public void beforeTick(long tick, InputState input) {}
+
+    @Override
+    public void afterTick(long tick, InputState input, GameWorld world) {log.add(input.getButtons(), StateChecksum.compute(world));}
+}
@@ -0,0 +1,24 @@
+package knight.arkham.simulation;
+
+/** Snapshot of the buttons held during one simulation tick, packed into a bitmask so the simulation never touches
+ * {@code Gdx.input} and a tick's input can be copied, compared or stored as a single int. */
+public class InputState {
+
+    public static final int JUMP = 1;
+    public static final int LEFT = 1 << 1;
+    public static final int RIGHT = 1 << 2;
+    public static final int DEBUG = 1 << 3;
+    public static final int PROFILER = 1 << 4;
+
+    private int buttons;
+
+    public boolean isPressed(int button) {return (buttons & button) != 0;}
+
+    public int getButtons() {return buttons;}
+
+    public void setButtons(int buttons) {this.buttons = buttons;}
+
+    public void set(InputState other) {buttons = other.buttons;}
+
+    public void clear() {buttons = 0;}
+}
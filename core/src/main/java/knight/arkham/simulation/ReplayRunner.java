@@ -0,0 +1,43 @@
+package knight.arkham.simulation;
+
+import com.badlogic.gdx.files.FileHandle;
+import knight.arkham.Koala;
+import knight.arkham.level.BinaryLevel;
+
+/** Replays an input log against a binary level as fast as the CPU allows, without a window or libGDX application,
+ * and reports the first tick that diverged from the recording. Run by the {@code core:replay} Gradle task. */
+public final class ReplayRunner {
+
+    private ReplayRunner() {}
+
+    public static void main(String[] args) {
+
+        if (args.length != 2)
+            throw new IllegalArgumentException("Usage: ReplayRunner <level file> <input log>");
+
+        InputPlayer player = run(BinaryLevel.load(new FileHandle(args[0])), InputLog.read(new FileHandle(args[1])));
+
+        if (player.getDivergedTick() != -1) {
+
+            System.out.println("Diverged at tick " + player.getDivergedTick());
+            System.exit(1);
+        }
+    }
+
+    public static InputPlayer run(BinaryLevel level, InputLog log) {
+
+        GameWorld world = new GameWorld(null, level.getGrid(), new Koala());
+        Simulation simulation = new Simulation(world);
+        InputPlayer player = new InputPlayer(log);
+        simulation.setTickListener(player);
+
+        long start = System.nanoTime();
+        simulation.runTicks(log.getTickCount());
+        long nanos = System.nanoTime() - start;
+
+        System.out.println("Replayed " + log.getTickCount() + " ticks in " + nanos / 1000000 + " ms, "
+            + (long) (log.getTickCount() * 1e9 / Math.max(1, nanos)) + " ticks/s");
+
+        return player;
+    }
+}
@@ -0,0 +1,139 @@
+package knight.arkham.simulation;
+
+import com.badlogic.gdx.utils.IntArray;
+
+import java.nio.ByteBuffer;
+
+/** Drives a {@link GameWorld} at a fixed timestep. Frame time is collected in an accumulator and consumed in
+ * {@link #STEP} sized ticks, the leftover fraction is exposed through {@link #getAlpha()} so the renderer can
+ * interpolate between the last two ticks. Headless callers can skip the accumulator and call {@link #runTicks(int)}
+ * to simulate as fast as the CPU allows. */
+public class Simulation {
+
+    public static final float STEP = 1 / 60f;
+    // frames longer than this are clamped, so a stall doesn't make us simulate seconds in one go
+    private static final float MAX_FRAME_TIME = 0.25f;
+    private final GameWorld world;
+    private final InputState input = new InputState();
+    private float accumulator;
+    private TickListener tickListener;
+    private SnapshotHistory history;
+    private long tick;
+
+    public Simulation(GameWorld world) {this.world = world;}
+
+    public GameWorld getWorld() {return world;}
+
+    /** The input applied to every tick until it is changed. */
+    public InputState getInput() {return input;}
+
+    public long getTick() {return tick;}
+
+    /** Keeps a snapshot of the world after every tick in the history, so the simulation can be rewound. */
+    public void setHistory(SnapshotHistory history) {
+
+        this.history = history;
+
+        if (history != null)
+            history.save(tick, world);
+    }
+
+    /** Forgets the saved ticks but the current one, after the world changed in a way rewinding must not undo. */
+    public void clearHistory() {
+
+        if (history == null)
+            return;
+
+        history.clear();
+        history.save(tick, world);
+    }
+
+    /** Recorder or replayer of the input of every tick, or null. */
+    public void setTickListener(TickListener tickListener) {this.tickListener = tickListener;}
+
+    /** Adds the frame time to the accumulator and runs as many ticks as it covers, returns the number of ticks run. */
+    public int advance(float frameTime) {
+
+        if (frameTime > MAX_FRAME_TIME)
+            frameTime = MAX_FRAME_TIME;
+
+        accumulator += frameTime;
+
+        int steps = 0;
+
+        while (accumulator >= STEP) {
+
+            step();
+            accumulator -= STEP;
+            steps++;
+        }
+
+        return steps;
+    }
+
+    public void step() {
+
+        if (tickListener != null)
+            tickListener.beforeTick(tick, input);
+
+        world.step(STEP, input);
+
+        if (tickListener != null)
+            tickListener.afterTick(tick, input, world);
+
+        tick++;
+
+        if (history != null)
+            history.save(tick, world);
+    }
+
+    public void runTicks(int ticks) {
+
+        for (int i = 0; i < ticks; i++)
+            step();
+    }
+
+    /** Goes back up to the given number of ticks, as far as the history reaches, returns how many it went back. */
+    public int rewind(int ticks) {
+
+        if (history == null)
+            return 0;
+
+        long target = tick;
+
+        while (target > tick - ticks && history.contains(target - 1))
+            target--;
+
+        if (target == tick)
+            return 0;
+
+        history.restore(target, world);
+        history.truncateAfter(target);
+
+        // don't interpolate from where the koala was before the rewind
+        world.getKoala().previousPosition.set(world.getKoala().position);
+
+        int rewound = (int) (tick - target);
+        tick = target;
+
+        return rewound;
+    }
+
+    /** Puts the world in the state of a snapshot of another world taken after the given tick, and continues from
+     * that tick.
+     * @param blocks the blocks destroyed in the other world, in the order they were */
+    public void resetTo(long tick, ByteBuffer snapshot, IntArray blocks) {
+
+        WorldSnapshot.restore(world, snapshot, blocks);
+        this.tick = tick;
+
+        if (history != null) {
+
+            history.truncateAfter(tick);
+            history.save(tick, world);
+        }
+    }
+
+    /** Fraction of a tick left in the accumulator, between 0 and 1. */
+    public float getAlpha() {return accumulator / STEP;}
+}
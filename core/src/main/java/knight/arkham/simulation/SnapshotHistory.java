@@ -0,0 +1,86 @@
+package knight.arkham.simulation;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/** The snapshots of the last ticks in a ring of reused byte buffers, for rewinding and rollback. A buffer only
+ * grows when a snapshot doesn't fit in it anymore, so saving every tick makes no garbage once they are warm. */
+public class SnapshotHistory {
+
+    private final ByteBuffer[] buffers;
+    private final long[] ticks;
+
+    /** @param capacity number of ticks kept, older ones are overwritten */
+    public SnapshotHistory(int capacity) {
+
+        buffers = new ByteBuffer[capacity];
+        ticks = new long[capacity];
+
+        for (int i = 0; i < capacity; i++) {
+
+            buffers[i] = ByteBuffer.allocate(1024);
+            ticks[i] = -1;
+        }
+    }
+
+    public int getCapacity() {return buffers.length;}
+
+    /** Saves the world as it is after the given tick. */
+    public void save(long tick, GameWorld world) {
+
+        int slot = getSlot(tick);
+        int size = WorldSnapshot.getByteSize(world);
+
+        if (buffers[slot].capacity() < size)
+            buffers[slot] = ByteBuffer.allocate(Math.max(size, buffers[slot].capacity() * 2));
+
+        ByteBuffer buffer = buffers[slot];
+        buffer.clear();
+        WorldSnapshot.write(world, buffer);
+        buffer.flip();
+
+        ticks[slot] = tick;
+    }
+
+    public boolean contains(long tick) {return tick >= 0 && ticks[getSlot(tick)] == tick;}
+
+    /** Restores the world to how it was after the given tick, returns false if that tick isn't kept anymore. */
+    public boolean restore(long tick, GameWorld world) {
+
+        if (!contains(tick))
+            return false;
+
+        ByteBuffer buffer = buffers[getSlot(tick)];
+        buffer.rewind();
+        WorldSnapshot.restore(world, buffer);
+
+        return true;
+    }
+
+    /** The saved snapshot of a tick, positioned at its start, or null if it isn't kept. */
+    public ByteBuffer get(long tick) {
+
+        if (!contains(tick))
+            return null;
+
+        ByteBuffer buffer = buffers[getSlot(tick)];
+        buffer.rewind();
+
+        return buffer;
+    }
+
+    /** Forgets the ticks after the given one, after rewinding to it they are no longer the future. */
+    public void truncateAfter(long tick) {
+
+        for (int i = 0; i < ticks.length; i++) {
+
+            if (ticks[i] > tick)
+                ticks[i] = -1;
+        }
+    }
+
+    /** Forgets every tick. */
+    public void clear() {Arrays.fill(ticks, -1);}
+
+    private int getSlot(long tick) {return (int) (tick % buffers.length);}
+}
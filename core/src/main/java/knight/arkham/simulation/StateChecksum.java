@@ -0,0 +1,42 @@
+package knight.arkham.simulation;
+
+import knight.arkham.Koala;
+import knight.arkham.entity.EntityStore;
+
+/** Hash of everything a tick can change: the koala, the actors and the destroyed blocks. Two runs of the same
+ * level and input must produce the same checksum after every tick, the first tick where they don't is where a
+ * replay diverged. */
+public final class StateChecksum {
+
+    private StateChecksum() {}
+
+    public static int compute(GameWorld world) {
+
+        Koala koala = world.getKoala();
+
+        int hash = 17;
+        hash = mix(hash, Float.floatToIntBits(koala.position.x));
+        hash = mix(hash, Float.floatToIntBits(koala.position.y));
+        hash = mix(hash, Float.floatToIntBits(koala.velocity.x));
+        hash = mix(hash, Float.floatToIntBits(koala.velocity.y));
+        hash = mix(hash, Float.floatToIntBits(koala.stateTimer));
+        hash = mix(hash, koala.currentState.ordinal());
+        hash = mix(hash, (koala.isGrounded ? 1 : 0) | (koala.isMovingRight ? 2 : 0));
+
+        EntityStore entities = world.getEntities();
+        hash = mix(hash, entities.count);
+
+        for (int i = 0; i < entities.count; i++) {
+
+            hash = mix(hash, entities.type[i]);
+            hash = mix(hash, Float.floatToIntBits(entities.x[i]));
+            hash = mix(hash, Float.floatToIntBits(entities.y[i]));
+            hash = mix(hash, Float.floatToIntBits(entities.velocityX[i]));
+            hash = mix(hash, Float.floatToIntBits(entities.velocityY[i]));
+        }
+
+        return mix(hash, world.getBlockHash());
+    }
+
+    private static int mix(int hash, int value) {return hash * 31 + value;}
+}
@@ -0,0 +1,11 @@
+package knight.arkham.simulation;
+
+/** Hooked into {@link Simulation#step()} around every tick, to record or replay its input. */
+public interface TickListener {
+
+    /** Called before the world steps, the input can still be changed. */
+    void beforeTick(long tick, InputState input);
+
+    /** Called after the world stepped with the input it used. */
+    void afterTick(long tick, InputState input, GameWorld world);
+}
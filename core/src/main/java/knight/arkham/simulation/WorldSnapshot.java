@@ -0,0 +1,186 @@
+package knight.arkham.simulation;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import knight.arkham.Koala;
+import knight.arkham.entity.EntityStore;
+
+import java.nio.ByteBuffer;
+
+/** Writes the state of a {@link GameWorld} to a byte buffer and restores it, without allocating. The tiles are
+ * stored as a reference into the world's list of destroyed blocks, the number of blocks destroyed so far and their
+ * hash, so a snapshot is a few dozen bytes plus 33 per actor however many blocks were broken:
+ * <ul>
+ * <li>the koala: position, previous position, velocity, state, state timer and flags</li>
+ * <li>the number of destroyed blocks and the hash of those blocks</li>
+ * <li>the actors</li>
+ * </ul>
+ * Blocks are only ever destroyed, so a world going back to one of its own snapshots only puts back the blocks it
+ * destroyed after it. A snapshot sent to another world, like the server state a client rolls back to, comes with the
+ * blocks themselves, see {@link #restore(GameWorld, ByteBuffer, IntArray)}. */
+public final class WorldSnapshot {
+
+    private static final int MAGIC = 0x4B534E50;
+    private static final int KOALA_BYTES = 4 * 8 + 2;
+    private static final int ENTITY_BYTES = 4 * 8 + 1;
+    private static final Koala.PlayerState[] STATES = Koala.PlayerState.values();
+
+    private WorldSnapshot() {}
+
+    /** Bytes {@link #write} needs for the world as it is now, it only grows with the actors. */
+    public static int getByteSize(GameWorld world) {
+
+        return 4 + KOALA_BYTES + 4 + 4 + 4 + world.getEntities().count * ENTITY_BYTES;
+    }
+
+    /** Whether the buffer holds a whole snapshot from its position on, for checking one that came over the network
+     * before restoring it. */
+    public static boolean isComplete(ByteBuffer buffer) {
+
+        int start = buffer.position();
+        int fixedBytes = 4 + KOALA_BYTES + 4 + 4 + 4;
+
+        if (buffer.remaining() < fixedBytes || buffer.getInt(start) != MAGIC)
+            return false;
+
+        int state = buffer.getInt(start + 4 + 7 * 4);
+        int count = buffer.getInt(start + fixedBytes - 4);
+
+        return state >= 0 && state < STATES.length && count >= 0
+            && count <= (buffer.remaining() - fixedBytes) / ENTITY_BYTES;
+    }
+
+    public static void write(GameWorld world, ByteBuffer buffer) {
+
+        Koala koala = world.getKoala();
+
+        buffer.putInt(MAGIC);
+        buffer.putFloat(koala.position.x);
+        buffer.putFloat(koala.position.y);
+        buffer.putFloat(koala.previousPosition.x);
+        buffer.putFloat(koala.previousPosition.y);
+        buffer.putFloat(koala.velocity.x);
+        buffer.putFloat(koala.velocity.y);
+        buffer.putFloat(koala.stateTimer);
+        buffer.putInt(koala.currentState.ordinal());
+        buffer.put((byte) (koala.isMovingRight ? 1 : 0));
+        buffer.put((byte) (koala.isGrounded ? 1 : 0));
+
+        buffer.putInt(world.getDestroyedBlockCount());
+        buffer.putInt(world.getBlockHash());
+
+        EntityStore entities = world.getEntities();
+        buffer.putInt(entities.count);
+
+        for (int i = 0; i < entities.count; i++) {
+
+            buffer.putInt(entities.type[i]);
+            buffer.putInt(entities.flags[i]);
+            buffer.putFloat(entities.x[i]);
+            buffer.putFloat(entities.y[i]);
+            buffer.putFloat(entities.velocityX[i]);
+            buffer.putFloat(entities.velocityY[i]);
+            buffer.putFloat(entities.width[i]);
+            buffer.putFloat(entities.height[i]);
+            buffer.put((byte) (entities.isGrounded[i] ? 1 : 0));
+        }
+    }
+
+    /** Restores the world to a snapshot it took itself earlier in its timeline, the blocks destroyed since are put
+     * back. Fails on a snapshot with blocks the world doesn't have. */
+    public static void restore(GameWorld world, ByteBuffer buffer) {
+
+        restoreKoala(world, buffer);
+
+        int blocks = buffer.getInt();
+        int hash = buffer.getInt();
+
+        if (blocks > world.getDestroyedBlockCount())
+            throw new GdxRuntimeException("The snapshot has blocks the world never destroyed");
+
+        // put back what the world destroyed after the snapshot, newest first
+        while (world.getDestroyedBlockCount() > blocks)
+            world.restoreLastBlock();
+
+        if (world.getBlockHash() != hash)
+            throw new GdxRuntimeException("The snapshot destroyed other blocks than the world");
+
+        restoreEntities(world, buffer);
+    }
+
+    /** Restores a world of the same level to a snapshot of any world, with the blocks destroyed in that world in the
+     * order they were. The blocks both have in common stay, the world puts back the ones after them and destroys
+     * the ones of the snapshot it doesn't have.
+     * @param blocks the destroyed blocks of the snapshot, as many as it counts, as packed tile indices */
+    public static void restore(GameWorld world, ByteBuffer buffer, IntArray blocks) {
+
+        restoreKoala(world, buffer);
+
+        int count = buffer.getInt();
+        int hash = buffer.getInt();
+
+        if (count != blocks.size)
+            throw new GdxRuntimeException("The snapshot has " + count + " destroyed blocks, " + blocks.size + " given");
+
+        int shared = 0;
+        int limit = Math.min(count, world.getDestroyedBlockCount());
+
+        while (shared < limit && blocks.get(shared) == world.getDestroyedBlock(shared))
+            shared++;
+
+        while (world.getDestroyedBlockCount() > shared)
+            world.restoreLastBlock();
+
+        for (int i = shared; i < count; i++)
+            world.destroyBlock(world.getGrid().getTileX(blocks.get(i)), world.getGrid().getTileY(blocks.get(i)));
+
+        // the blocks broke in the world the snapshot was taken of, subscribers heard about it there
+        world.getEvents().clear();
+
+        if (world.getBlockHash() != hash)
+            throw new GdxRuntimeException("The destroyed blocks don't match the snapshot");
+
+        restoreEntities(world, buffer);
+    }
+
+    private static void restoreKoala(GameWorld world, ByteBuffer buffer) {
+
+        if (buffer.getInt() != MAGIC)
+            throw new GdxRuntimeException("Not a world snapshot");
+
+        Koala koala = world.getKoala();
+
+        koala.position.set(buffer.getFloat(), buffer.getFloat());
+        koala.previousPosition.set(buffer.getFloat(), buffer.getFloat());
+        koala.velocity.set(buffer.getFloat(), buffer.getFloat());
+        koala.stateTimer = buffer.getFloat();
+        koala.currentState = STATES[buffer.getInt()];
+        koala.isMovingRight = buffer.get() != 0;
+        koala.isGrounded = buffer.get() != 0;
+    }
+
+    private static void restoreEntities(GameWorld world, ByteBuffer buffer) {
+
+        EntityStore entities = world.getEntities();
+        entities.clear();
+
+        int count = buffer.getInt();
+
+        for (int i = 0; i < count; i++) {
+
+            int type = buffer.getInt();
+            int flags = buffer.getInt();
+            float x = buffer.getFloat();
+            float y = buffer.getFloat();
+            float velocityX = buffer.getFloat();
+            float velocityY = buffer.getFloat();
+
+            int index = entities.add(type, x, y, buffer.getFloat(), buffer.getFloat());
+
+            entities.flags[index] = flags;
+            entities.velocityX[index] = velocityX;
+            entities.velocityY[index] = velocityY;
+            entities.isGrounded[index] = buffer.get() != 0;
+        }
+    }
+}
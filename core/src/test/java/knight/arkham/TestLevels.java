@@ -0,0 +1,42 @@
+package knight.arkham;
+
+import com.badlogic.gdx.math.RandomXS128;
+import knight.arkham.entity.EntityStore;
+import knight.arkham.level.BinaryLevel;
+import knight.arkham.level.LevelConverter;
+import knight.arkham.simulation.GameWorld;
+
+import java.io.File;
+
+/** The levels the checks run against, read from the .tmx in assets, the working directory of the tests, so they
+ * don't depend on convertLevels. */
+public final class TestLevels {
+
+    private TestLevels() {}
+
+    public static BinaryLevel loadLevel1() {return LevelConverter.read(new File("level1.tmx"));}
+
+    /** A world nobody draws on its own copy of the level's grid, with seeded actors spread over it, every fourth
+     * one breaking blocks and thrown up to hit one from below. */
+    public static GameWorld createWorld(BinaryLevel level, int actors, long seed) {
+
+        GameWorld world = new GameWorld(null, level.getGrid().copyOnWrite(), new Koala());
+        EntityStore entities = world.getEntities();
+        RandomXS128 random = new RandomXS128(seed);
+
+        for (int i = 0; i < actors; i++) {
+
+            int entity = entities.add(0, random.nextFloat() * level.getWidth(), random.nextFloat() * level.getHeight(),
+                0.75f, 0.75f);
+            entities.velocityX[entity] = random.nextFloat() * 20 - 10;
+
+            if (i % 4 == 0) {
+
+                entities.flags[entity] |= EntityStore.BREAKS_BLOCKS;
+                entities.velocityY[entity] = 10 + random.nextFloat() * 10;
+            }
+        }
+
+        return world;
+    }
+}
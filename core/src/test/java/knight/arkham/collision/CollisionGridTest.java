@@ -0,0 +1,119 @@
+package knight.arkham.collision;
+
+import com.badlogic.gdx.math.RandomXS128;
+import knight.arkham.TestLevels;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CollisionGridTest {
+
+    private static final int RAYS = 20000;
+    private static final float MAX_DISTANCE = 40;
+    // the walk adds up a float per tile crossed
+    private static final float EPSILON = 1e-3f;
+
+    @Test
+    public void raycastMatchesBruteForceOnLevel1() {checkRaycasts(TestLevels.loadLevel1().getGrid(), 11);}
+
+    @Test
+    public void raycastMatchesBruteForceOnRandomGrid() {
+
+        CollisionGrid grid = new CollisionGrid(150, 40);
+        RandomXS128 random = new RandomXS128(3);
+
+        // wider than a word, so rays cross word boundaries
+        for (int y = 0; y < grid.getHeight(); y++)
+            for (int x = 0; x < grid.getWidth(); x++)
+                grid.setSolid(x, y, random.nextInt(8) == 0);
+
+        checkRaycasts(grid, 12);
+    }
+
+    private static void checkRaycasts(CollisionGrid grid, long seed) {
+
+        RandomXS128 random = new RandomXS128(seed);
+        RayHit hit = new RayHit();
+        int hits = 0;
+
+        for (int i = 0; i < RAYS; i++) {
+
+            // some rays start outside the grid, some go straight along an axis
+            float originX = random.nextFloat() * (grid.getWidth() + 10) - 5;
+            float originY = random.nextFloat() * (grid.getHeight() + 10) - 5;
+            float directionX = i % 10 == 0 ? 0 : random.nextFloat() * 2 - 1;
+            float directionY = i % 10 == 1 ? 0 : random.nextFloat() * 2 - 1;
+
+            if (directionX == 0 && directionY == 0)
+                continue;
+
+            float expected = findFirstHit(grid, originX, originY, directionX, directionY);
+
+            // rays ending right at a tile edge may go either way
+            if (Math.abs(expected - MAX_DISTANCE) < EPSILON)
+                continue;
+
+            String ray = "ray " + i + " from " + originX + ", " + originY + " towards " + directionX + ", " + directionY;
+            int tile = grid.raycast(originX, originY, directionX, directionY, MAX_DISTANCE, hit);
+
+            if (expected > MAX_DISTANCE) {
+
+                assertEquals(ray, -1, tile);
+                continue;
+            }
+
+            assertTrue(ray + " missed a tile at " + expected, tile != -1);
+            assertEquals(ray, expected, hit.distance, EPSILON);
+            assertEquals(ray, hit.tileY * grid.getWidth() + hit.tileX, tile);
+            assertTrue(ray + " hit an empty tile", grid.isSolid(hit.tileX, hit.tileY));
+            hits++;
+        }
+
+        assertTrue("too few rays hit", hits > RAYS / 10);
+    }
+
+    /** The distance the ray enters the nearest solid tile at, found by testing it against every solid tile, or
+     * infinity when it hits none. */
+    private static float findFirstHit(CollisionGrid grid, float originX, float originY, float directionX,
+                                      float directionY) {
+
+        double length = Math.sqrt(directionX * directionX + directionY * directionY);
+        double dx = directionX / length;
+        double dy = directionY / length;
+        double nearest = Double.POSITIVE_INFINITY;
+
+        for (int y = 0; y < grid.getHeight(); y++) {
+
+            for (int x = 0; x < grid.getWidth(); x++) {
+
+                if (!grid.isSolid(x, y))
+                    continue;
+
+                // slabs of the tile on each axis, a ray along an axis has to start between the other axis' sides
+                double[] entryX = getSlab(originX, dx, x);
+                double[] entryY = getSlab(originY, dy, y);
+                double enter = Math.max(Math.max(entryX[0], entryY[0]), 0);
+                double exit = Math.min(entryX[1], entryY[1]);
+
+                if (enter < exit && enter < nearest)
+                    nearest = enter;
+            }
+        }
+
+        return (float) nearest;
+    }
+
+    private static double[] getSlab(float origin, double direction, int tile) {
+
+        if (direction == 0)
+            return origin >= tile && origin < tile + 1
+                ? new double[] {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY}
+                : new double[] {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+        double first = (tile - origin) / direction;
+        double second = (tile + 1 - origin) / direction;
+
+        return new double[] {Math.min(first, second), Math.max(first, second)};
+    }
+}
@@ -0,0 +1,45 @@
+package knight.arkham.entity;
+
+import knight.arkham.TestLevels;
+import knight.arkham.level.BinaryLevel;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.InputState;
+import knight.arkham.simulation.Simulation;
+import knight.arkham.simulation.StateChecksum;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelEntityStepperTest {
+
+    // well over the count the stepper starts forking at
+    private static final int ACTORS = 4000;
+    private static final int TICKS = 300;
+
+    @Test
+    public void parallelStepMatchesSerialStep() {
+
+        BinaryLevel level = TestLevels.loadLevel1();
+        Simulation serial = new Simulation(TestLevels.createWorld(level, ACTORS, 5));
+        Simulation parallel = new Simulation(TestLevels.createWorld(level, ACTORS, 5));
+
+        parallel.getWorld().setParallelStepper(new ParallelEntityStepper());
+        serial.getInput().setButtons(InputState.RIGHT | InputState.JUMP);
+        parallel.getInput().setButtons(InputState.RIGHT | InputState.JUMP);
+
+        for (int tick = 0; tick < TICKS; tick++) {
+
+            serial.step();
+            parallel.step();
+
+            assertEquals("checksum of tick " + tick, StateChecksum.compute(serial.getWorld()),
+                StateChecksum.compute(parallel.getWorld()));
+        }
+
+        GameWorld world = parallel.getWorld();
+
+        assertTrue("no blocks broken", world.getDestroyedBlockCount() > 0);
+        assertEquals(serial.getWorld().getBlockHash(), world.getBlockHash());
+    }
+}
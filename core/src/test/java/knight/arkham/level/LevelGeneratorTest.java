@@ -0,0 +1,103 @@
+package knight.arkham.level;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LevelGeneratorTest {
+
+    private static final long SEED = 42;
+    private static final int CHUNKS = 64;
+
+    @Test
+    public void chunksDontDependOnOrderOrThread() throws Exception {
+
+        int[][][] inOrder = new int[CHUNKS][][];
+        LevelGenerator generator = new LevelGenerator(SEED, CHUNKS);
+
+        for (int chunk = 0; chunk < CHUNKS; chunk++)
+            inOrder[chunk] = generate(generator, chunk);
+
+        // a second generator of the same seed, chunks shuffled over a pool, each generated twice
+        LevelGenerator other = new LevelGenerator(SEED, CHUNKS);
+        List<Integer> order = new ArrayList<>();
+
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+
+            order.add(chunk);
+            order.add(chunk);
+        }
+
+        Collections.shuffle(order, new Random(SEED));
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+        try {
+
+            List<Future<int[][]>> results = new ArrayList<>();
+
+            for (int chunk : order)
+                results.add(pool.submit(() -> generate(other, chunk)));
+
+            for (int i = 0; i < order.size(); i++) {
+
+                int[][] layers = results.get(i).get();
+
+                for (int layer = 0; layer < layers.length; layer++)
+                    assertArrayEquals("chunk " + order.get(i) + " layer " + layer, inOrder[order.get(i)][layer],
+                        layers[layer]);
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void seedsGiveDifferentLevels() {
+
+        LevelGenerator first = new LevelGenerator(SEED, CHUNKS);
+        LevelGenerator second = new LevelGenerator(SEED + 1, CHUNKS);
+        boolean isDifferent = false;
+
+        for (int chunk = 1; chunk < CHUNKS && !isDifferent; chunk++)
+            isDifferent = !Arrays.deepEquals(generate(first, chunk), generate(second, chunk));
+
+        assertTrue(isDifferent);
+    }
+
+    @Test
+    public void chunksStartAndEndOnGround() {
+
+        LevelGenerator generator = new LevelGenerator(SEED, CHUNKS);
+        int walls = generator.getLayerNames().length - 1;
+        int width = generator.getChunkWidth();
+
+        for (int chunk = 0; chunk < CHUNKS; chunk++) {
+
+            int[] cells = generate(generator, chunk)[walls];
+
+            assertFalse("chunk " + chunk, cells[0] == TileCodec.EMPTY || cells[width - 1] == TileCodec.EMPTY);
+        }
+    }
+
+    private static int[][] generate(LevelGenerator generator, int chunk) {
+
+        int[][] layers = new int[generator.getLayerNames().length][generator.getChunkWidth() * generator.getHeight()];
+
+        generator.readChunk(chunk, layers);
+
+        return layers;
+    }
+}
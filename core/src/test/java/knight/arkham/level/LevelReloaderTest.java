@@ -0,0 +1,103 @@
+package knight.arkham.level;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import knight.arkham.TestLevels;
+import knight.arkham.collision.CollisionGrid;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LevelReloaderTest {
+
+    // a brick of the level1 tileset
+    private static final int BRICK = 143;
+
+    @Test
+    public void onlyChangedCellsAreSet() {
+
+        BinaryLevel level = TestLevels.loadLevel1();
+        TiledMap map = createMap(level);
+        CollisionGrid grid = level.getGrid().copyOnWrite();
+        int walls = level.getLayerIndex(ChunkedLevel.WALLS);
+        TiledMapTileLayer wallsLayer = (TiledMapTileLayer) map.getLayers().get(ChunkedLevel.WALLS);
+        // what the other cells of the walls are, the reload must leave them alone
+        TiledMapTileLayer.Cell untouched = wallsLayer.getCell(0, 0);
+
+        // the same level edited: a block added high in the sky and one removed from the ground
+        BinaryLevel edited = TestLevels.loadLevel1();
+        int width = edited.getWidth();
+        int[] cells = edited.getLayer(walls);
+        int addedX = 10;
+        int addedY = edited.getHeight() - 2;
+        int removedX = 30;
+
+        assertEquals(TileCodec.EMPTY, cells[addedY * width + addedX]);
+        assertTrue(grid.isSolid(removedX, 0));
+
+        cells[addedY * width + addedX] = BRICK;
+        cells[removedX] = TileCodec.EMPTY;
+
+        Array<int[]> notices = new Array<>();
+        int changed = LevelReloader.apply(edited, map, grid,
+            (layer, x, y, noticeWidth, height) -> {
+
+                assertEquals(wallsLayer, layer);
+                notices.add(new int[] {x, y, noticeWidth, height});
+            });
+
+        assertEquals(2, changed);
+        assertEquals(BRICK, wallsLayer.getCell(addedX, addedY).getTile().getId());
+        assertNull(wallsLayer.getCell(removedX, 0));
+        assertTrue(grid.isSolid(addedX, addedY));
+        assertFalse(grid.isSolid(removedX, 0));
+        assertEquals(untouched, wallsLayer.getCell(0, 0));
+
+        // one notice around both cells
+        assertEquals(1, notices.size);
+        assertEquals(addedX, notices.get(0)[0]);
+        assertEquals(0, notices.get(0)[1]);
+        assertEquals(removedX - addedX + 1, notices.get(0)[2]);
+        assertEquals(addedY + 1, notices.get(0)[3]);
+
+        // the map is the level now, nothing is left to change
+        assertEquals(0, LevelReloader.apply(edited, map, grid, (layer, x, y, noticeWidth, height) -> notices.add(null)));
+        assertEquals(1, notices.size);
+    }
+
+    @Test
+    public void sizeChangeChangesNothing() {
+
+        BinaryLevel level = TestLevels.loadLevel1();
+        TiledMap map = createMap(level);
+        CollisionGrid grid = new CollisionGrid(level.getWidth() + 1, level.getHeight());
+        int walls = level.getLayerIndex(ChunkedLevel.WALLS);
+
+        level.getLayer(walls)[0] = TileCodec.EMPTY;
+
+        assertEquals(-1, LevelReloader.apply(level, map, grid, null));
+        assertTrue(((TiledMapTileLayer) map.getLayers().get(ChunkedLevel.WALLS)).getCell(0, 0) != null);
+    }
+
+    /** The map of the level with tiles that have ids and no texture, enough for the cells to be compared. */
+    private static TiledMap createMap(BinaryLevel level) {
+
+        TiledMapTileSet tileSet = new TiledMapTileSet();
+
+        for (int id = level.getFirstTileId(); id < level.getFirstTileId() + 256; id++) {
+
+            StaticTiledMapTile tile = new StaticTiledMapTile(new TextureRegion());
+            tile.setId(id);
+            tileSet.putTile(id, tile);
+        }
+
+        return level.createMap(tileSet, path -> new TextureRegion());
+    }
+}
@@ -0,0 +1,136 @@
+package knight.arkham.navigation;
+
+import knight.arkham.Koala;
+import knight.arkham.TestLevels;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.simulation.GameWorld;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PathFinderTest {
+
+    private GameWorld world;
+    private CollisionGrid grid;
+    private NavigationGraph graph;
+    private PathFinder finder;
+
+    @Before
+    public void setUp() {
+
+        world = TestLevels.createWorld(TestLevels.loadLevel1(), 0, 0);
+        grid = world.getGrid();
+        graph = createGraph();
+        finder = new PathFinder(graph, 64);
+        world.setTileChangeListener(finder);
+    }
+
+    @Test
+    public void pathsFollowTheEdgesAndAreCached() {
+
+        int start = findNode(0);
+        int goal = findNode(grid.getWidth() / 2);
+        int[] path = finder.findPath(start, goal);
+
+        assertValidPath(path, start, goal);
+        assertEquals(1, finder.getCacheMisses());
+
+        assertSame(path, finder.findPath(start, goal));
+        assertEquals(1, finder.getCacheHits());
+    }
+
+    @Test
+    public void offTheGraphHasNoPath() {
+
+        int node = findNode(0);
+
+        assertEquals(0, finder.findPath(-1, node).length);
+        assertEquals(0, finder.findPath(node, -1).length);
+    }
+
+    @Test
+    public void breakingABlockPatchesTheGraph() {
+
+        String original = describe(graph);
+        int start = findNode(0);
+        int goal = findNode(grid.getWidth() / 2);
+        int[] path = finder.findPath(start, goal);
+        int node = path[path.length / 2];
+        int x = node % grid.getWidth();
+        int y = node / grid.getWidth() - 1;
+
+        assertTrue(grid.isSolid(x, y));
+        world.destroyBlock(x, y);
+
+        assertEquals(describe(createGraph()), describe(graph));
+        assertNotEquals(original, describe(graph));
+        assertFalse(graph.isNode(node));
+        assertEquals(0, finder.getCacheSize());
+
+        int[] patched = finder.findPath(start, goal);
+
+        assertEquals(2, finder.getCacheMisses());
+        assertValidPath(patched, start, goal);
+
+        // told about a column that is as it was, the cached path stays
+        finder.onTilesChanged(null, 0, 0, 1, grid.getHeight());
+        assertSame(patched, finder.findPath(start, goal));
+
+        world.restoreLastBlock();
+        assertEquals(original, describe(graph));
+    }
+
+    private NavigationGraph createGraph() {
+
+        Koala koala = world.getKoala();
+        return new NavigationGraph(grid, koala.width, koala.height);
+    }
+
+    /** The lowest node of the first column from x that has one. */
+    private int findNode(int x) {
+
+        for (; x < grid.getWidth(); x++)
+            for (int y = 0; y < grid.getHeight(); y++)
+                if (graph.isNode(x, y))
+                    return y * grid.getWidth() + x;
+
+        throw new AssertionError("no node from " + x);
+    }
+
+    private void assertValidPath(int[] path, int start, int goal) {
+
+        assertTrue(path.length > 1);
+        assertEquals(start, path[0]);
+        assertEquals(goal, path[path.length - 1]);
+
+        for (int i = 1; i < path.length; i++)
+            assertNotEquals(-1, graph.findEdge(path[i - 1], path[i]));
+    }
+
+    /** Every node and edge, so two graphs can be compared. */
+    private static String describe(NavigationGraph graph) {
+
+        StringBuilder builder = new StringBuilder();
+
+        for (int node = 0; node < graph.getWidth() * graph.getHeight(); node++) {
+
+            if (!graph.isNode(node))
+                continue;
+
+            builder.append(node).append(':');
+
+            for (int edge = 0; edge < graph.getEdgeCount(node); edge++)
+                builder.append(graph.getEdgeTarget(node, edge)).append(',').append(graph.getEdgeCost(node, edge))
+                    .append(',').append(graph.getEdgeAction(node, edge)).append(';');
+
+            builder.append('\n');
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package knight.arkham.net;
+
+import com.badlogic.gdx.math.RandomXS128;
+import knight.arkham.TestLevels;
+import knight.arkham.collision.CollisionGrid;
+import knight.arkham.level.BinaryLevel;
+import knight.arkham.simulation.GameWorld;
+import knight.arkham.simulation.Simulation;
+import knight.arkham.simulation.StateChecksum;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PredictingClientTest {
+
+    private static final int LATENCY_MILLIS = 10;
+    private static final int TICKS = 600;
+    // the server breaks more blocks than fit in one state message, which the client didn't predict
+    private static final int BREAK_TICK = 100;
+    private static final int BLOCKS = 500;
+
+    @Test
+    public void clientConvergesWithTheServerOverLatency() throws InterruptedException {
+
+        BinaryLevel level = TestLevels.loadLevel1();
+        LoopbackTransport[] pair = LoopbackTransport.createPair(LATENCY_MILLIS);
+        int[] largestMessage = new int[1];
+
+        Transport serverEnd = new Transport() {
+
+            @Override
+            public void send(ByteBuffer message) {
+
+                largestMessage[0] = Math.max(largestMessage[0], message.remaining());
+                pair[1].send(message);
+            }
+
+            @Override
+            public boolean receive(ByteBuffer message) {return pair[1].receive(message);}
+
+            @Override
+            public void close() {}
+        };
+
+        ServerSession session = new ServerSession(ServerMain.createWorld(level), serverEnd);
+        Simulation server = session.getSimulation();
+        Simulation client = new Simulation(TestLevels.createWorld(level, 0, 0));
+        PredictingClient predicting = new PredictingClient(client, pair[0]);
+        RandomXS128 random = new RandomXS128(9);
+
+        for (int i = 0; i < TICKS; i++) {
+
+            if (i % 20 == 0)
+                client.getInput().setButtons(random.nextInt(8));
+
+            client.step();
+            session.tick();
+            predicting.receive();
+
+            if (server.getTick() == BREAK_TICK)
+                breakBlocks(server.getWorld());
+
+            Thread.sleep(1);
+        }
+
+        // the server catches up with the input the client sent, then its last states come back
+        while (server.getTick() < client.getTick()) {
+
+            session.tick();
+            Thread.sleep(1);
+        }
+
+        // states go out every other tick, the last one may be a tick behind
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (predicting.getConfirmedTick() < client.getTick() - 1 && System.currentTimeMillis() < deadline) {
+
+            Thread.sleep(1);
+            predicting.receive();
+        }
+
+        GameWorld serverWorld = server.getWorld();
+        GameWorld clientWorld = client.getWorld();
+
+        assertTrue("the blocks fit in one message", BLOCKS * 4 > Protocol.MAX_MESSAGE_BYTES);
+        assertTrue(largestMessage[0] <= Protocol.MAX_MESSAGE_BYTES);
+        assertTrue("no rollback", predicting.getRollbacks() > 0);
+        assertEquals(0, predicting.getDroppedMessages());
+        assertEquals(0, session.getDroppedMessages());
+        assertEquals(server.getTick(), client.getTick());
+        assertEquals(serverWorld.getDestroyedBlockCount(), clientWorld.getDestroyedBlockCount());
+        assertEquals(serverWorld.getBlockHash(), clientWorld.getBlockHash());
+        assertEquals(StateChecksum.compute(serverWorld), StateChecksum.compute(clientWorld));
+    }
+
+    @Test
+    public void shortMessagesAreDropped() {
+
+        BinaryLevel level = TestLevels.loadLevel1();
+        LoopbackTransport[] pair = LoopbackTransport.createPair(0);
+        ServerSession session = new ServerSession(ServerMain.createWorld(level), pair[1]);
+        PredictingClient predicting = new PredictingClient(new Simulation(TestLevels.createWorld(level, 0, 0)), pair[0]);
+        ByteBuffer message = ByteBuffer.allocate(Protocol.MAX_MESSAGE_BYTES);
+
+        // an input header promising more buttons than it has, and a state cut off in its header
+        message.put(Protocol.INPUT).putLong(0).putInt(0).put((byte) 5).put((byte) 1).flip();
+        pair[0].send(message);
+        message.clear();
+        message.put(Protocol.STATE).putLong(10).flip();
+        pair[1].send(message);
+
+        session.tick();
+        predicting.receive();
+
+        assertEquals(1, session.getDroppedMessages());
+        assertEquals(1, predicting.getDroppedMessages());
+        assertEquals(-1, predicting.getConfirmedTick());
+    }
+
+    private static void breakBlocks(GameWorld world) {
+
+        CollisionGrid grid = world.getGrid();
+        int broken = 0;
+
+        for (int y = 0; y < grid.getHeight() && broken < BLOCKS; y++) {
+
+            for (int x = 0; x < grid.getWidth() && broken < BLOCKS; x++) {
+
+                if (grid.isSolid(x, y)) {
+
+                    world.destroyBlock(x, y);
+                    broken++;
+                }
+            }
+        }
+    }
+}
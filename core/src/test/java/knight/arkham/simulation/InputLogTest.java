@@ -0,0 +1,52 @@
+package knight.arkham.simulation;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.math.RandomXS128;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+
+public class InputLogTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeAndReadRoundTrip() throws IOException {
+
+        InputLog log = new InputLog();
+        RandomXS128 random = new RandomXS128(7);
+
+        // runs of every length the variable length int has, up to three bytes
+        for (int run : new int[] {1, 2, 127, 128, 300, 16383, 16384, 1})
+            for (int i = 0; i < run; i++)
+                log.add(run & 0xFF, random.nextInt());
+
+        File file = folder.newFile("run.log");
+        log.write(file);
+
+        InputLog read = InputLog.read(new FileHandle(file));
+
+        assertEquals(log.getTickCount(), read.getTickCount());
+
+        for (int tick = 0; tick < log.getTickCount(); tick++) {
+
+            assertEquals("buttons of tick " + tick, log.getButtons(tick), read.getButtons(tick));
+            assertEquals("checksum of tick " + tick, log.getChecksum(tick), read.getChecksum(tick));
+        }
+    }
+
+    @Test
+    public void emptyLog() throws IOException {
+
+        File file = folder.newFile("empty.log");
+        new InputLog().write(file);
+
+        assertEquals(0, InputLog.read(new FileHandle(file)).getTickCount());
+    }
+}
@@ -0,0 +1,20 @@
+package knight.arkham.simulation;
+
+import knight.arkham.host.RandomBot;
+
+/** Plays like a {@link RandomBot} and records the input and checksums into a log, for playing it back. */
+class RecordingBot implements TickListener {
+
+    private final RandomBot bot;
+    private final InputRecorder recorder = new InputRecorder();
+
+    RecordingBot(long seed) {bot = new RandomBot(seed);}
+
+    InputLog getLog() {return recorder.getLog();}
+
+    @Override
+    public void beforeTick(long tick, InputState input) {bot.beforeTick(tick, input);}
+
+    @Override
+    public void afterTick(long tick, InputState input, GameWorld world) {recorder.afterTick(tick, input, world);}
+}
@@ -0,0 +1,29 @@
+package knight.arkham.simulation;
+
+import knight.arkham.TestLevels;
+import knight.arkham.level.BinaryLevel;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplayTest {
+
+    private static final int TICKS = 60 * 60;
+
+    @Test
+    public void replayOfLevel1DoesNotDiverge() {
+
+        BinaryLevel level = TestLevels.loadLevel1();
+        Simulation simulation = new Simulation(TestLevels.createWorld(level, 0, 0));
+        RecordingBot bot = new RecordingBot(42);
+
+        simulation.setTickListener(bot);
+        simulation.runTicks(TICKS);
+
+        InputPlayer player = ReplayRunner.run(level, bot.getLog());
+
+        assertTrue(player.isFinished());
+        assertEquals("diverged at tick", -1, player.getDivergedTick());
+    }
+}
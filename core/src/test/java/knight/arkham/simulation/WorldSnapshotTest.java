@@ -0,0 +1,85 @@
+package knight.arkham.simulation;
+
+import com.badlogic.gdx.utils.IntArray;
+import knight.arkham.TestLevels;
+import knight.arkham.level.BinaryLevel;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WorldSnapshotTest {
+
+    private static final int ACTORS = 2000;
+    private static final int TICKS = 600;
+    // the actors thrown up are still on their way to the blocks
+    private static final int SNAPSHOT_TICK = 10;
+
+    @Test
+    public void restoreRewindsToTheSameState() {
+
+        Simulation simulation = new Simulation(TestLevels.createWorld(TestLevels.loadLevel1(), ACTORS, 1));
+        GameWorld world = simulation.getWorld();
+
+        simulation.setTickListener(new RecordingBot(1));
+        simulation.runTicks(SNAPSHOT_TICK);
+
+        ByteBuffer snapshot = write(world);
+        int checksum = StateChecksum.compute(world);
+        int blocks = world.getDestroyedBlockCount();
+        RecordingBot bot = new RecordingBot(2);
+
+        simulation.setTickListener(bot);
+        simulation.runTicks(TICKS);
+
+        assertTrue("no blocks broken after the snapshot", world.getDestroyedBlockCount() > blocks);
+
+        WorldSnapshot.restore(world, snapshot);
+
+        assertEquals(checksum, StateChecksum.compute(world));
+        assertEquals(blocks, world.getDestroyedBlockCount());
+
+        // the ticks after the snapshot run the same again
+        InputPlayer player = new InputPlayer(bot.getLog());
+
+        simulation.setTickListener(player);
+        simulation.runTicks(TICKS);
+
+        assertEquals("diverged at tick", -1, player.getDivergedTick());
+    }
+
+    @Test
+    public void restoreWithBlocksCopiesAnotherWorld() {
+
+        BinaryLevel level = TestLevels.loadLevel1();
+        Simulation simulation = new Simulation(TestLevels.createWorld(level, ACTORS, 1));
+        GameWorld world = simulation.getWorld();
+
+        simulation.setTickListener(new RecordingBot(3));
+        simulation.runTicks(TICKS * 2);
+
+        IntArray blocks = new IntArray();
+
+        for (int i = 0; i < world.getDestroyedBlockCount(); i++)
+            blocks.add(world.getDestroyedBlock(i));
+
+        GameWorld copy = TestLevels.createWorld(level, 0, 0);
+
+        WorldSnapshot.restore(copy, write(world), blocks);
+
+        assertEquals(StateChecksum.compute(world), StateChecksum.compute(copy));
+        assertEquals(world.getBlockHash(), copy.getBlockHash());
+    }
+
+    private static ByteBuffer write(GameWorld world) {
+
+        ByteBuffer buffer = ByteBuffer.allocate(WorldSnapshot.getByteSize(world));
+
+        WorldSnapshot.write(world, buffer);
+        buffer.flip();
+
+        return buffer;
+    }
+}
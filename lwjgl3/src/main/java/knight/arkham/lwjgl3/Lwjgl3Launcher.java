@@ -2,20 +2,21 @@ package knight.arkham.lwjgl3;
 
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
+import knight.arkham.LaunchOptions;
 import knight.arkham.Platformer;
 
-/** Launches the desktop (LWJGL3) application. */
+/** Launches the desktop (LWJGL3) application, see {@link LaunchOptions#parse} for the arguments. */
 public class Lwjgl3Launcher {
     public static void main(String[] args) {
         if (StartupHelper.startNewJvmIfRequired()) return; // This handles macOS support and helps on Windows.
-        createApplication();
+        createApplication(LaunchOptions.parse(args));
     }
 
-    private static void createApplication() {
-        new Lwjgl3Application(new Platformer(), getDefaultConfiguration());
+    private static void createApplication(LaunchOptions options) {
+        new Lwjgl3Application(new Platformer(options), getDefaultConfiguration(options));
     }
 
-    private static Lwjgl3ApplicationConfiguration getDefaultConfiguration() {
+    private static Lwjgl3ApplicationConfiguration getDefaultConfiguration(LaunchOptions options) {
         Lwjgl3ApplicationConfiguration configuration = new Lwjgl3ApplicationConfiguration();
         configuration.setTitle("test");
         configuration.useVsync(true);
@@ -24,6 +25,11 @@ public class Lwjgl3Launcher {
         //// If you remove the above line and set Vsync to false, you can get unlimited FPS, which can be
         //// useful for testing performance, but can also be very stressful to some hardware.
         //// You may also need to configure GPU drivers to fully disable Vsync; this can cause screen tearing.
+        if (options.benchmarkFrames >= 0) {
+            configuration.useVsync(false);
+            configuration.setForegroundFPS(0);
+            configuration.setIdleFPS(0);
+        }
         configuration.setWindowedMode(640, 480);
         configuration.setWindowIcon("libgdx128.png", "libgdx64.png", "libgdx32.png", "libgdx16.png");
         return configuration;